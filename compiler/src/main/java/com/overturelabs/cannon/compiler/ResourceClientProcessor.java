@@ -0,0 +1,419 @@
+package com.overturelabs.cannon.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a client for every interface annotated with {@code @ResourceClient}. The generated
+ * client is named {@code Cannon<Interface>} and lives in the package of the interface.
+ * <br/>
+ * Skeleton resource paths are validated and split into segments here, so the generated resource
+ * points never run the skeleton path regex. Requests are built with a {@code RequestBuilder}.
+ */
+public class ResourceClientProcessor extends AbstractProcessor {
+    static final String RESOURCE_CLIENT = "com.overturelabs.cannon.toolbox.client.ResourceClient";
+    static final String ENDPOINT = "com.overturelabs.cannon.toolbox.client.Endpoint";
+    static final String PATH = "com.overturelabs.cannon.toolbox.client.Path";
+    static final String PARAM = "com.overturelabs.cannon.toolbox.client.Param";
+    static final String HEADER = "com.overturelabs.cannon.toolbox.client.Header";
+    static final String GENERATED_CLIENT_PREFIX = "Cannon";
+
+    private static final String LISTENER = "com.android.volley.Response.Listener";
+    private static final String ERROR_LISTENER = "com.android.volley.Response.ErrorListener";
+    private static final String GENERIC_REQUEST = "com.overturelabs.cannon.toolbox.GenericRequest";
+    private static final String NOT_LOADED_EXCEPTION = "com.overturelabs.Cannon.NotLoadedException";
+    private static final String UNSUPPORTED_ENCODING_EXCEPTION = "java.io.UnsupportedEncodingException";
+
+    // Local variable of the generated methods. By convention $ is left to generated code, so parameters don't clash with it.
+    private static final String BUILDER = "$builder";
+
+    // Same as ResourcePathTemplate, which would otherwise check it at runtime.
+    private static final Pattern SKELETON_PATH_PATTERN =
+            Pattern.compile("^(?:/(?:(?:\\{\\{\\s*[\\d\\w]+\\s*\\}{2})|(?:\\w+[-]*[\\w]*)))+$");
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        // All of them, since process() claims them.
+        return new HashSet<>(Arrays.asList(RESOURCE_CLIENT, ENDPOINT, PATH, PARAM, HEADER));
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            // The other annotations are read off the methods of the clients.
+            if (!annotation.getQualifiedName().contentEquals(RESOURCE_CLIENT)) {
+                continue;
+            }
+
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.INTERFACE) {
+                    error(element, "@ResourceClient can only be applied to interfaces.");
+                    continue;
+                }
+
+                TypeElement client = (TypeElement) element;
+                List<Endpoint> endpoints = new ArrayList<>();
+                boolean isValid = true;
+
+                for (ExecutableElement method : ElementFilter.methodsIn(client.getEnclosedElements())) {
+                    if (method.getModifiers().contains(Modifier.STATIC)) {
+                        continue;
+                    }
+
+                    Endpoint endpoint = parseEndpoint(method);
+                    if (endpoint == null) {
+                        isValid = false;
+                    } else {
+                        endpoints.add(endpoint);
+                    }
+                }
+
+                if (isValid) {
+                    generate(client, (String) getAnnotationValue(client, RESOURCE_CLIENT, "baseUrl"), endpoints);
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Endpoint method, with its skeleton path already split into segments.
+     */
+    private static class Endpoint {
+        ExecutableElement method;
+        int httpMethod;
+        String path;
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        TypeMirror modelType;
+        boolean isFiring;
+        List<String> statements = new ArrayList<>(); // Calls on the request builder, one per parameter
+    }
+
+    private Endpoint parseEndpoint(ExecutableElement method) {
+        if (findAnnotation(method, ENDPOINT) == null) {
+            error(method, "Methods of @ResourceClient interfaces must be annotated with @Endpoint.");
+            return null;
+        }
+
+        Endpoint endpoint = new Endpoint();
+        endpoint.method = method;
+        Object httpMethod = getAnnotationValue(method, ENDPOINT, "method");
+        endpoint.httpMethod = httpMethod != null ? (Integer) httpMethod : 0;
+        endpoint.path = (String) getAnnotationValue(method, ENDPOINT, "path");
+
+        if (!SKELETON_PATH_PATTERN.matcher(endpoint.path).matches()) {
+            error(method, "Invalid skeleton resource path \"" + endpoint.path + "\".");
+            return null;
+        }
+        splitPath(endpoint);
+
+        boolean isValid = true;
+        Set<String> pathParams = new HashSet<>();
+        boolean hasErrorListener = false;
+
+        for (VariableElement parameter : method.getParameters()) {
+            String name = parameter.getSimpleName().toString();
+            String path = (String) getAnnotationValue(parameter, PATH, "value");
+            String param = (String) getAnnotationValue(parameter, PARAM, "value");
+            String header = (String) getAnnotationValue(parameter, HEADER, "value");
+            String erasure = processingEnv.getTypeUtils().erasure(parameter.asType()).toString();
+            int annotationCount = (path != null ? 1 : 0) + (param != null ? 1 : 0) + (header != null ? 1 : 0);
+
+            if (name.equals(BUILDER)) {
+                error(parameter, "Parameters must not be named " + BUILDER + ".");
+                isValid = false;
+            } else if (annotationCount > 1) {
+                error(parameter, "Parameters can only have one of @Path, @Param and @Header.");
+                isValid = false;
+            } else if (path != null) {
+                if (!endpoint.names.contains(path)) {
+                    error(parameter, "The skeleton resource path has no placeholder \"" + path + "\".");
+                    isValid = false;
+                }
+                pathParams.add(path);
+                endpoint.statements.add(BUILDER + ".addPathParam(\"" + escape(path) + "\", " + toStringExpression(parameter, false) + ")");
+            } else if (param != null) {
+                endpoint.statements.add(nullChecked(parameter,
+                        ".addParam(\"" + escape(param) + "\", " + toStringExpression(parameter, true) + ")"));
+            } else if (header != null) {
+                endpoint.statements.add(nullChecked(parameter,
+                        ".addHeader(\"" + escape(header) + "\", " + toStringExpression(parameter, true) + ")"));
+            } else if (erasure.equals(LISTENER)) {
+                List<? extends TypeMirror> typeArguments = ((DeclaredType) parameter.asType()).getTypeArguments();
+                if (typeArguments.isEmpty() || typeArguments.get(0).getKind() != TypeKind.DECLARED) {
+                    error(parameter, "The listener must have a concrete model type, e.g. Response.Listener<User>.");
+                    isValid = false;
+                } else {
+                    endpoint.modelType = typeArguments.get(0);
+                }
+                endpoint.statements.add(BUILDER + ".setListener(" + name + ")");
+            } else if (erasure.equals(ERROR_LISTENER)) {
+                hasErrorListener = true;
+                endpoint.statements.add(BUILDER + ".setErrorListener(" + name + ")");
+            } else {
+                error(parameter, "Parameters must be annotated with @Path, @Param or @Header.");
+                isValid = false;
+            }
+        }
+
+        for (String name : endpoint.names) {
+            if (!pathParams.contains(name)) {
+                error(method, "No @Path parameter for placeholder \"" + name + "\".");
+                isValid = false;
+            }
+        }
+        if (endpoint.modelType == null && isValid) {
+            error(method, "Endpoints need a Response.Listener parameter.");
+            isValid = false;
+        }
+        if (!hasErrorListener) {
+            error(method, "Endpoints need a Response.ErrorListener parameter.");
+            isValid = false;
+        }
+
+        String returnType = processingEnv.getTypeUtils().erasure(method.getReturnType()).toString();
+        if (method.getReturnType().getKind() == TypeKind.BOOLEAN) {
+            endpoint.isFiring = true;
+            isValid &= checkThrows(method, NOT_LOADED_EXCEPTION) & checkThrows(method, UNSUPPORTED_ENCODING_EXCEPTION);
+        } else if (returnType.equals(GENERIC_REQUEST)) {
+            isValid &= checkThrows(method, UNSUPPORTED_ENCODING_EXCEPTION);
+        } else {
+            error(method, "Endpoints must return boolean, to fire the request, or GenericRequest, to build it.");
+            isValid = false;
+        }
+
+        return isValid ? endpoint : null;
+    }
+
+    private void splitPath(Endpoint endpoint) {
+        String path = endpoint.path;
+        int literalStart = 0;
+        int start;
+
+        while ((start = path.indexOf("{{", literalStart)) != -1) {
+            int end = path.indexOf("}}", start) + 2;
+
+            endpoint.literals.add(path.substring(literalStart, start));
+            endpoint.names.add(path.substring(start + 2, end - 2).trim());
+            endpoint.placeholders.add(path.substring(start, end));
+            literalStart = end;
+        }
+        endpoint.literals.add(path.substring(literalStart));
+    }
+
+    private boolean checkThrows(ExecutableElement method, String exception) {
+        for (TypeMirror thrown : method.getThrownTypes()) {
+            String name = thrown.toString();
+            if (name.equals(exception) || name.equals("java.io.IOException") || name.equals("java.lang.Exception")) {
+                return true;
+            }
+        }
+
+        error(method, "Endpoint methods must declare that they throw " + exception + ".");
+        return false;
+    }
+
+    private String toStringExpression(VariableElement parameter, boolean isNullChecked) {
+        String name = parameter.getSimpleName().toString();
+
+        if (parameter.asType().toString().equals("java.lang.String")) {
+            return name;
+        } else if (parameter.asType().getKind().isPrimitive()) {
+            return "String.valueOf(" + name + ")";
+        } else if (isNullChecked) {
+            return name + ".toString()";
+        }
+        return name + " != null ? " + name + ".toString() : null";
+    }
+
+    private String nullChecked(VariableElement parameter, String statement) {
+        if (parameter.asType().getKind().isPrimitive()) {
+            return BUILDER + statement;
+        }
+        return "if (" + parameter.getSimpleName() + " != null) " + BUILDER + statement;
+    }
+
+    private void generate(TypeElement client, String baseUrl, List<Endpoint> endpoints) {
+        String packageName = getPackage(client);
+        String clientName = GENERATED_CLIENT_PREFIX + getBinaryName(client, packageName).replace('$', '_');
+        String interfaceName = client.getQualifiedName().toString();
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import com.overturelabs.cannon.toolbox.RequestBuilder;\n")
+                .append("import com.overturelabs.cannon.toolbox.ResourcePathTemplate;\n")
+                .append("import com.overturelabs.cannon.toolbox.ResourcePoint;\n\n")
+                .append("/**\n * Generated by the Cannon compiler. Do not modify!\n */\n")
+                .append("public final class ").append(clientName).append(" implements ").append(interfaceName).append(" {\n")
+                .append("    private static final String BASE_URL = \"").append(escape(baseUrl)).append("\";\n");
+
+        for (int i = 0; i < endpoints.size(); i++) {
+            Endpoint endpoint = endpoints.get(i);
+            String model = endpoint.modelType.toString();
+
+            source.append("\n    private static final ResourcePoint<").append(model).append("> ENDPOINT_").append(i)
+                    .append(" = new ResourcePoint<").append(model).append(">(BASE_URL,\n")
+                    .append("            new ResourcePathTemplate(\"").append(escape(endpoint.path)).append("\",\n")
+                    .append("                    ").append(stringArray(endpoint.literals)).append(",\n")
+                    .append("                    ").append(stringArray(endpoint.names)).append(",\n")
+                    .append("                    ").append(stringArray(endpoint.placeholders)).append("),\n")
+                    .append("            ").append(parserExpression(endpoint.modelType)).append(") {};\n");
+        }
+
+        for (int i = 0; i < endpoints.size(); i++) {
+            appendMethod(source, endpoints.get(i), i);
+        }
+
+        source.append("}\n");
+
+        try {
+            String qualifiedClientName = packageName.isEmpty() ? clientName : packageName + "." + clientName;
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedClientName, client);
+            Writer writer = file.openWriter();
+            try {
+                writer.write(source.toString());
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            error(client, "Unable to generate resource client: " + e.getMessage());
+        }
+    }
+
+    private void appendMethod(StringBuilder source, Endpoint endpoint, int index) {
+        ExecutableElement method = endpoint.method;
+        String model = endpoint.modelType.toString();
+
+        source.append("\n    @Override\n")
+                .append("    public ").append(method.getReturnType()).append(" ").append(method.getSimpleName()).append("(");
+
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) {
+                source.append(", ");
+            }
+            source.append(parameters.get(i).asType()).append(" ").append(parameters.get(i).getSimpleName());
+        }
+        source.append(")");
+
+        List<? extends TypeMirror> thrownTypes = method.getThrownTypes();
+        for (int i = 0; i < thrownTypes.size(); i++) {
+            source.append(i == 0 ? " throws " : ", ").append(thrownTypes.get(i));
+        }
+
+        source.append(" {\n")
+                .append("        RequestBuilder<").append(model).append("> ").append(BUILDER).append(" = ENDPOINT_").append(index)
+                .append(".newRequest().setMethod(").append(endpoint.httpMethod).append(");\n");
+
+        for (String statement : endpoint.statements) {
+            source.append("        ").append(statement).append(";\n");
+        }
+
+        source.append("        return ").append(BUILDER).append(".").append(endpoint.isFiring ? "fire()" : "build()").append(";\n")
+                .append("    }\n");
+    }
+
+    private String parserExpression(TypeMirror modelType) {
+        String model = modelType.toString();
+
+        if (model.equals("java.lang.String")) {
+            return "new com.overturelabs.cannon.toolbox.parsers.StringResponseParser()";
+        } else if (((DeclaredType) modelType).getTypeArguments().isEmpty()) {
+            return "new com.overturelabs.cannon.toolbox.parsers.GsonResponseParser<" + model + ">(" + model + ".class)";
+        }
+        return "new com.overturelabs.cannon.toolbox.parsers.GsonResponseParser<" + model + ">(\n"
+                + "                    new com.google.gson.reflect.TypeToken<" + model + ">() {})";
+    }
+
+    private static String stringArray(List<String> values) {
+        StringBuilder array = new StringBuilder("new String[] {");
+        for (int i = 0; i < values.size(); i++) {
+            array.append(i == 0 ? " \"" : ", \"").append(escape(values.get(i))).append("\"");
+        }
+        return array.append(values.isEmpty() ? "}" : " }").toString();
+    }
+
+    private AnnotationMirror findAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement())
+                    .getQualifiedName().contentEquals(annotationName)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    private Object getAnnotationValue(Element element, String annotationName, String valueName) {
+        AnnotationMirror annotation = findAnnotation(element, annotationName);
+        if (annotation == null) {
+            return null;
+        }
+
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(valueName)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private String getPackage(Element element) {
+        while (element.getKind() != ElementKind.PACKAGE) {
+            element = element.getEnclosingElement();
+        }
+        return ((PackageElement) element).getQualifiedName().toString();
+    }
+
+    /**
+     * Returns the binary name of the interface without its package, e.g. {@code Outer$Inner}.
+     */
+    private String getBinaryName(TypeElement client, String packageName) {
+        String binaryName = processingEnv.getElementUtils().getBinaryName(client).toString();
+        return packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
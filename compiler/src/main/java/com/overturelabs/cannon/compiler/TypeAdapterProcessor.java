@@ -0,0 +1,448 @@
+package com.overturelabs.cannon.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a streaming Gson {@code TypeAdapter} for every class annotated with
+ * {@code @CannonModel}. The generated adapter is named {@code <Model>$$CannonTypeAdapter}
+ * and lives in the package of the model, so that it can read and write package-private fields.
+ * <br/>
+ * Primitives, their boxed types and strings are read and written directly. Any other field
+ * type is delegated to the adapter Gson has for it.
+ */
+public class TypeAdapterProcessor extends AbstractProcessor {
+    static final String CANNON_MODEL = "com.overturelabs.cannon.toolbox.gson.CannonModel";
+    static final String SERIALIZED_NAME = "com.google.gson.annotations.SerializedName";
+    static final String GENERATED_ADAPTER_SUFFIX = "$$CannonTypeAdapter";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(CANNON_MODEL);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    error(element, "@CannonModel can only be applied to classes.");
+                    continue;
+                }
+
+                TypeElement model = (TypeElement) element;
+                if (isValid(model)) {
+                    generate(model);
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isValid(TypeElement model) {
+        boolean isValid = true;
+
+        if (model.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(model, "@CannonModel classes must not be abstract.");
+            isValid = false;
+        }
+
+        if (model.getNestingKind() == NestingKind.MEMBER && !model.getModifiers().contains(Modifier.STATIC)) {
+            error(model, "@CannonModel classes must not be inner classes, make them static.");
+            isValid = false;
+        }
+
+        if (!model.getTypeParameters().isEmpty()) {
+            error(model, "@CannonModel classes must not be generic.");
+            isValid = false;
+        }
+
+        boolean hasConstructor = false;
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(model.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                hasConstructor = true;
+            }
+        }
+        if (!hasConstructor) {
+            error(model, "@CannonModel classes need a non-private no-argument constructor.");
+            isValid = false;
+        }
+
+        for (VariableElement field : getFields(model)) {
+            if (field.getModifiers().contains(Modifier.PRIVATE)) {
+                error(field, "Fields of @CannonModel classes must not be private.");
+                isValid = false;
+            } else if (field.getModifiers().contains(Modifier.FINAL)) {
+                error(field, "Fields of @CannonModel classes must not be final.");
+                isValid = false;
+            } else if (!field.getModifiers().contains(Modifier.PUBLIC)
+                    && !getPackage(field.getEnclosingElement()).equals(getPackage(model))) {
+                error(field, "Inherited fields of @CannonModel classes must be public or in the same package.");
+                isValid = false;
+            }
+        }
+
+        return isValid;
+    }
+
+    /**
+     * Collects serialized fields of the model and its superclasses, like Gson does.
+     */
+    private List<VariableElement> getFields(TypeElement model) {
+        List<VariableElement> fields = new ArrayList<>();
+
+        TypeElement type = model;
+        while (type != null && !type.getQualifiedName().contentEquals("java.lang.Object")) {
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (!modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.TRANSIENT)) {
+                    fields.add(field);
+                }
+            }
+
+            TypeMirror superclass = type.getSuperclass();
+            type = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superclass).asElement()
+                    : null;
+        }
+
+        return fields;
+    }
+
+    private void generate(TypeElement model) {
+        String packageName = getPackage(model);
+        String modelName = model.getQualifiedName().toString();
+        String adapterName = getBinaryName(model, packageName) + GENERATED_ADAPTER_SUFFIX;
+        List<VariableElement> fields = getFields(model);
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import com.google.gson.Gson;\n")
+                .append("import com.google.gson.JsonSyntaxException;\n")
+                .append("import com.google.gson.TypeAdapter;\n")
+                .append("import com.google.gson.reflect.TypeToken;\n")
+                .append("import com.google.gson.stream.JsonReader;\n")
+                .append("import com.google.gson.stream.JsonToken;\n")
+                .append("import com.google.gson.stream.JsonWriter;\n\n")
+                .append("import java.io.IOException;\n\n")
+                .append("/**\n * Generated by the Cannon compiler. Do not modify!\n */\n")
+                .append("public final class ").append(adapterName)
+                .append(" extends TypeAdapter<").append(modelName).append("> {\n")
+                .append("    private final Gson mGson;\n");
+
+        for (int i = 0; i < fields.size(); i++) {
+            if (getKind(fields.get(i).asType()) == FieldKind.DELEGATE) {
+                source.append("    private TypeAdapter<").append(boxed(fields.get(i).asType()))
+                        .append("> mAdapter").append(i).append(";\n");
+            }
+        }
+
+        source.append("\n    public ").append(adapterName).append("(Gson gson) {\n")
+                .append("        mGson = gson;\n")
+                .append("    }\n");
+
+        // Delegate adapters are looked up on first use, so that recursive models don't loop.
+        for (int i = 0; i < fields.size(); i++) {
+            TypeMirror type = fields.get(i).asType();
+            if (getKind(type) == FieldKind.DELEGATE) {
+                String boxedType = boxed(type);
+                source.append("\n    private TypeAdapter<").append(boxedType).append("> adapter").append(i).append("() {\n")
+                        .append("        if (mAdapter").append(i).append(" == null) {\n")
+                        .append("            mAdapter").append(i).append(" = mGson.getAdapter(new TypeToken<")
+                        .append(boxedType).append(">() {});\n")
+                        .append("        }\n")
+                        .append("        return mAdapter").append(i).append(";\n")
+                        .append("    }\n");
+            }
+        }
+
+        appendWrite(source, modelName, fields);
+        appendRead(source, modelName, fields);
+
+        source.append("}\n");
+
+        try {
+            String qualifiedAdapterName = packageName.isEmpty() ? adapterName : packageName + "." + adapterName;
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedAdapterName, model);
+            Writer writer = file.openWriter();
+            try {
+                writer.write(source.toString());
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            error(model, "Unable to generate type adapter: " + e.getMessage());
+        }
+    }
+
+    private void appendWrite(StringBuilder source, String modelName, List<VariableElement> fields) {
+        source.append("\n    @Override\n")
+                .append("    public void write(JsonWriter out, ").append(modelName).append(" value) throws IOException {\n")
+                .append("        if (value == null) {\n")
+                .append("            out.nullValue();\n")
+                .append("            return;\n")
+                .append("        }\n\n")
+                .append("        out.beginObject();\n");
+
+        for (int i = 0; i < fields.size(); i++) {
+            VariableElement field = fields.get(i);
+            String access = "value." + field.getSimpleName();
+
+            source.append("        out.name(\"").append(escape(getSerializedName(field))).append("\");\n");
+
+            switch (getKind(field.asType())) {
+                case PRIMITIVE:
+                    if (field.asType().getKind() == TypeKind.FLOAT) {
+                        // Written as a Float, so that it isn't widened to a long double string.
+                        source.append("        out.value(Float.valueOf(").append(access).append("));\n");
+                    } else {
+                        source.append("        out.value(").append(access).append(");\n");
+                    }
+                    break;
+                case BOXED_BOOLEAN:
+                    source.append("        if (").append(access).append(" == null) {\n")
+                            .append("            out.nullValue();\n")
+                            .append("        } else {\n")
+                            .append("            out.value(").append(access).append(".booleanValue());\n")
+                            .append("        }\n");
+                    break;
+                case BOXED_NUMBER:
+                case STRING:
+                    source.append("        out.value(").append(access).append(");\n");
+                    break;
+                default:
+                    source.append("        adapter").append(i).append("().write(out, ").append(access).append(");\n");
+                    break;
+            }
+        }
+
+        source.append("        out.endObject();\n")
+                .append("    }\n");
+    }
+
+    private void appendRead(StringBuilder source, String modelName, List<VariableElement> fields) {
+        source.append("\n    @Override\n")
+                .append("    public ").append(modelName).append(" read(JsonReader in) throws IOException {\n")
+                .append("        if (in.peek() == JsonToken.NULL) {\n")
+                .append("            in.nextNull();\n")
+                .append("            return null;\n")
+                .append("        }\n\n")
+                .append("        ").append(modelName).append(" value = new ").append(modelName).append("();\n")
+                .append("        in.beginObject();\n")
+                .append("        while (in.hasNext()) {\n")
+                .append("            switch (in.nextName()) {\n");
+
+        for (int i = 0; i < fields.size(); i++) {
+            VariableElement field = fields.get(i);
+            TypeMirror type = field.asType();
+            String access = "value." + field.getSimpleName();
+            FieldKind kind = getKind(type);
+
+            source.append("                case \"").append(escape(getSerializedName(field))).append("\":\n");
+
+            if (kind == FieldKind.DELEGATE) {
+                source.append("                    ").append(access).append(" = adapter").append(i).append("().read(in);\n")
+                        .append("                    break;\n");
+                continue;
+            }
+
+            source.append("                    if (in.peek() == JsonToken.NULL) {\n")
+                    .append("                        in.nextNull();\n");
+            if (kind != FieldKind.PRIMITIVE) {
+                // Like Gson, nulls leave primitive fields untouched.
+                source.append("                        ").append(access).append(" = null;\n");
+            }
+            source.append("                    } else {\n");
+            if (isNumber(type)) {
+                // Same as Gson's own number adapters, malformed numbers are syntax errors.
+                source.append("                        try {\n")
+                        .append("                            ").append(access).append(" = ").append(readExpression(type)).append(";\n")
+                        .append("                        } catch (NumberFormatException e) {\n")
+                        .append("                            throw new JsonSyntaxException(e);\n")
+                        .append("                        }\n");
+            } else {
+                source.append("                        ").append(access).append(" = ").append(readExpression(type)).append(";\n");
+            }
+            source.append("                    }\n")
+                    .append("                    break;\n");
+        }
+
+        source.append("                default:\n")
+                .append("                    in.skipValue();\n")
+                .append("                    break;\n")
+                .append("            }\n")
+                .append("        }\n")
+                .append("        in.endObject();\n\n")
+                .append("        return value;\n")
+                .append("    }\n");
+    }
+
+    private String readExpression(TypeMirror type) {
+        String name;
+        switch (getKind(type)) {
+            case PRIMITIVE:
+                name = type.getKind().name();
+                break;
+            case STRING:
+                name = "STRING";
+                break;
+            default:
+                name = unboxedKind(type);
+                break;
+        }
+
+        switch (name) {
+            case "BOOLEAN":
+                return "in.nextBoolean()";
+            case "INT":
+                return "in.nextInt()";
+            case "LONG":
+                return "in.nextLong()";
+            case "DOUBLE":
+                return "in.nextDouble()";
+            case "FLOAT":
+                return "(float) in.nextDouble()";
+            case "SHORT":
+                return "(short) in.nextInt()";
+            case "BYTE":
+                return "(byte) in.nextInt()";
+            default:
+                // Gson reads booleans into string fields as well.
+                return "in.peek() == JsonToken.BOOLEAN ? Boolean.toString(in.nextBoolean()) : in.nextString()";
+        }
+    }
+
+    private boolean isNumber(TypeMirror type) {
+        FieldKind kind = getKind(type);
+        return (kind == FieldKind.PRIMITIVE && type.getKind() != TypeKind.BOOLEAN) || kind == FieldKind.BOXED_NUMBER;
+    }
+
+    private enum FieldKind {
+        PRIMITIVE, BOXED_BOOLEAN, BOXED_NUMBER, STRING, DELEGATE
+    }
+
+    private FieldKind getKind(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+            case INT:
+            case LONG:
+            case DOUBLE:
+            case FLOAT:
+            case SHORT:
+            case BYTE:
+                return FieldKind.PRIMITIVE;
+            case DECLARED:
+                String name = type.toString();
+                if (name.equals("java.lang.String")) {
+                    return FieldKind.STRING;
+                } else if (name.equals("java.lang.Boolean")) {
+                    return FieldKind.BOXED_BOOLEAN;
+                } else if (unboxedKind(type) != null) {
+                    return FieldKind.BOXED_NUMBER;
+                }
+                return FieldKind.DELEGATE;
+            default:
+                // Chars, arrays and anything else are left to Gson.
+                return FieldKind.DELEGATE;
+        }
+    }
+
+    private String unboxedKind(TypeMirror type) {
+        switch (type.toString()) {
+            case "java.lang.Boolean":
+                return "BOOLEAN";
+            case "java.lang.Integer":
+                return "INT";
+            case "java.lang.Long":
+                return "LONG";
+            case "java.lang.Double":
+                return "DOUBLE";
+            case "java.lang.Float":
+                return "FLOAT";
+            case "java.lang.Short":
+                return "SHORT";
+            case "java.lang.Byte":
+                return "BYTE";
+            default:
+                return null;
+        }
+    }
+
+    private String boxed(TypeMirror type) {
+        if (type.getKind() == TypeKind.CHAR) {
+            return "java.lang.Character";
+        }
+        return type.toString();
+    }
+
+    private String getSerializedName(VariableElement field) {
+        for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement())
+                    .getQualifiedName().contentEquals(SERIALIZED_NAME)) {
+                for (java.util.Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                        : annotation.getElementValues().entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals("value")) {
+                        return (String) entry.getValue().getValue();
+                    }
+                }
+            }
+        }
+
+        return field.getSimpleName().toString();
+    }
+
+    private String getPackage(Element element) {
+        while (element.getKind() != ElementKind.PACKAGE) {
+            element = element.getEnclosingElement();
+        }
+        return ((PackageElement) element).getQualifiedName().toString();
+    }
+
+    /**
+     * Returns the binary name of the model without its package, e.g. {@code Outer$Inner}.
+     */
+    private String getBinaryName(TypeElement model, String packageName) {
+        String binaryName = processingEnv.getElementUtils().getBinaryName(model).toString();
+        return packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
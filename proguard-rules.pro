@@ -15,3 +15,11 @@
 #-keepclassmembers class fqcn.of.javascript.interface.for.webview {
 #   public *;
 #}
+
+# Adapters generated for @CannonModel classes are looked up by name, as the name of the model
+# class plus $$CannonTypeAdapter, and constructed reflectively with the shared Gson.
+-keep @interface com.overturelabs.cannon.toolbox.gson.CannonModel
+-keepnames @com.overturelabs.cannon.toolbox.gson.CannonModel class *
+-keep class **$$CannonTypeAdapter {
+    <init>(...);
+}
@@ -5,29 +5,43 @@ import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Pair;
 
+import com.android.volley.ExecutorDelivery;
 import com.android.volley.Request;
 import com.android.volley.RequestQueue;
 import com.android.volley.Response;
+import com.android.volley.Network;
 import com.android.volley.toolbox.HttpStack;
-import com.android.volley.toolbox.ImageLoader;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapterFactory;
 import com.overturelabs.cannon.BitmapLruCache;
+import com.overturelabs.cannon.CannonImageLoader;
 import com.overturelabs.cannon.OkHttpStack;
+import com.overturelabs.cannon.toolbox.BandwidthMeter;
 import com.overturelabs.cannon.toolbox.BasicNetworkOOM;
 import com.overturelabs.cannon.toolbox.CannonAuthenticator;
 import com.overturelabs.cannon.toolbox.DiskBasedCacheOOM;
 import com.overturelabs.cannon.toolbox.GenericRequest;
+import com.overturelabs.cannon.toolbox.HeaderSet;
 import com.overturelabs.cannon.toolbox.MultipartRequest;
+import com.overturelabs.cannon.toolbox.ParseDelivery;
 import com.overturelabs.cannon.toolbox.RefreshRequest;
+import com.overturelabs.cannon.toolbox.RequestBuilder;
 import com.overturelabs.cannon.toolbox.ResourcePoint;
 import com.overturelabs.cannon.toolbox.SwissArmyKnife;
+import com.overturelabs.cannon.toolbox.UrlBuilder;
+import com.overturelabs.cannon.toolbox.gson.GsonRegistry;
 
 import java.io.File;
 import java.io.UnsupportedEncodingException;
-import java.util.HashMap;
+import java.lang.reflect.Type;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -42,22 +56,35 @@ public class Cannon {
     private static final String DEFAULT_PARAMS_ENCODING = "UTF-8";
     private static final int DISK_CACHE_MEMORY_ALLOCATION = 300; // 300 MiB
     private static final String DISK_CACHE_NAME = "AmmunitionBox";
+    private static final String TILE_CACHE_NAME = "AmmunitionBoxTiles"; // Kept out of the disk cache directory, which only expects cache entries
+    private static final int NETWORK_THREAD_POOL_SIZE = 4; // Same as Volley's default
+    private static final int DEFAULT_PARSE_THREAD_POOL_SIZE = 2;
+    private static final int IMAGE_NETWORK_THREAD_POOL_SIZE = 2; // Image fetches are capped separately from API requests
+    private static final int TRANSFER_NETWORK_THREAD_POOL_SIZE = 2; // Long transfers hold these instead of the shared network threads
 
     private static final AtomicBoolean SAFETY_SWITCH = new AtomicBoolean(true); // If safety switch is set, you can't fire the cannon! Loading the cannon will disable the safety switch.
 
-    private static String sUserAgent = "Cannon/0.0.1 (Android)"; // Default user agent string
+    private static volatile String sUserAgent = "Cannon/0.0.1 (Android)"; // Default user agent string
+    private static volatile HeaderSet sBaseHeaders = new HeaderSet(sUserAgent, null); // Swapped whenever the user agent or auth token changes
 
     private static Cannon sInstance;
     private static Context sApplicationContext;
-    private static HashMap<Class<? extends ResourcePoint>, ResourcePoint<?>> sResourcePoints = new HashMap<>();
+    // Resource points are prepared from any thread, and looked up by every fireAt.
+    private static final ConcurrentMap<Class<? extends ResourcePoint>, ResourcePoint<?>> sResourcePoints = new ConcurrentHashMap<>();
+    // Authenticators for backends with their own auth, by canonical base URL.
+    private static final ConcurrentMap<String, CannonAuthenticator> sAuthenticators = new ConcurrentHashMap<>();
 
     private static RequestQueue sRequestQueue;
-    private static ImageLoader sImageLoader;
+    private static ParseDelivery sParseDelivery;
+    private static RequestQueue sImageRequestQueue;
+    private static RequestQueue sTransferRequestQueue;
+    private static CannonImageLoader sImageLoader;
+    private static BandwidthMeter sBandwidthMeter;
 
-    private static Boolean sCannonAuthenticatorEnabled;
+    private static volatile boolean sCannonAuthenticatorEnabled = false;
     
 
-    private Cannon(Context context, String appName) {
+    private Cannon(Context context, String appName, int parseThreadPoolSize) {
         try {
             /**
              * We load the cannon as part of the application
@@ -71,34 +98,55 @@ public class Cannon {
             // Set globals
             String appVersion = pInfo.versionName;
 
-            // Build and set the custom user agent string
-            // We lock on the safety switch when setting user agent because we this variable
-            // is available via a static method and we don't want other threads to read this
-            // in the middle of a write operation.
-            synchronized (SAFETY_SWITCH) {
-                sUserAgent = appName + '/' + appVersion + " (" + Build.MANUFACTURER + " " + Build.MODEL + " " + Build.DEVICE + "; " + Build.VERSION.RELEASE + "; )";
-            }
+            // Build and set the custom user agent string. It's volatile, so readers always see
+            // either the old or the new string, and the base headers pick it up on next use.
+            sUserAgent = appName + '/' + appVersion + " (" + Build.MANUFACTURER + " " + Build.MODEL + " " + Build.DEVICE + "; " + Build.VERSION.RELEASE + "; )";
             // Based on com.android.volley.toolbox.Volley.java newRequestQueue method.
 
             final File cacheDir;
+            final File tileDir;
             final int MULTIPLIER;
             if (Environment.isExternalStorageEmulated()) {
                 cacheDir = new File(sApplicationContext.getExternalCacheDir(), DISK_CACHE_NAME);
+                tileDir = new File(sApplicationContext.getExternalCacheDir(), TILE_CACHE_NAME);
                 MULTIPLIER = 2;
             }
             else {
                 cacheDir = new File(sApplicationContext.getCacheDir(), DISK_CACHE_NAME);
+                tileDir = new File(sApplicationContext.getCacheDir(), TILE_CACHE_NAME);
                 MULTIPLIER = 1;
             }
 
+            // Tiled images only live as long as the process that downloaded them, so anything
+            // left in the tile directory was leaked by a process that died, or never recycled it.
+            clearDirectory(tileDir);
+
             // Create a DiskBasedCache of 300 MiB for internal storage, 300MiB*2=600MiB for external storage
             DiskBasedCacheOOM diskBasedCache
                     = new DiskBasedCacheOOM(cacheDir, MULTIPLIER * DISK_CACHE_MEMORY_ALLOCATION * 1024 * 1024);
+            sBandwidthMeter = new BandwidthMeter(sApplicationContext);
+
             HttpStack httpStack = new OkHttpStack();
-            sRequestQueue = new RequestQueue(diskBasedCache, new BasicNetworkOOM(httpStack));
+            Network network = new BasicNetworkOOM(httpStack, sBandwidthMeter);
+
+            // Responses are parsed on a pool of their own, so network threads can move on right away.
+            sParseDelivery = new ParseDelivery(diskBasedCache,
+                    new ExecutorDelivery(new Handler(Looper.getMainLooper())), parseThreadPoolSize);
+            sRequestQueue = new RequestQueue(diskBasedCache, network, NETWORK_THREAD_POOL_SIZE, sParseDelivery);
             sRequestQueue.start();
 
-            sImageLoader = new ImageLoader(sRequestQueue, new BitmapLruCache());
+            // Images get a queue of their own, so that a flung list doesn't starve API requests.
+            sImageRequestQueue = new RequestQueue(diskBasedCache, network, IMAGE_NETWORK_THREAD_POOL_SIZE);
+            sImageRequestQueue.start();
+
+            // Long transfers, such as throttled requests and upload chunks, hold their network thread
+            // for a long time, so they get a queue of their own too, and never hold up other requests.
+            // Its network doesn't feed the bandwidth meter, which would take throttling for a slow link.
+            sTransferRequestQueue = new RequestQueue(diskBasedCache, new BasicNetworkOOM(httpStack),
+                    TRANSFER_NETWORK_THREAD_POOL_SIZE, sParseDelivery);
+            sTransferRequestQueue.start();
+
+            sImageLoader = new CannonImageLoader(sImageRequestQueue, new BitmapLruCache(), sBandwidthMeter, tileDir);
         } catch (PackageManager.NameNotFoundException e) {
             // Crashlytics.logException(e);
         }
@@ -120,6 +168,17 @@ public class Cannon {
      * @param appName Application name.
      */
     public static Cannon load(Context context, String appName) {
+        return load(context, appName, DEFAULT_PARSE_THREAD_POOL_SIZE);
+    }
+
+    /**
+     * Load the cannon! You cannot fire any volleys if the cannon is not loaded, so load it up!
+     *
+     * @param context             Current context. Cannon needs this to load the request queue.
+     * @param appName             Application name.
+     * @param parseThreadPoolSize Number of threads for parsing responses, separate from the network threads.
+     */
+    public static Cannon load(Context context, String appName, int parseThreadPoolSize) {
         /**
          * Let's lock on the safety switch first, so that only one thread can perform write operations
          * at any one time. Then we check if the safety switch is on; If the safety switch is on, we will
@@ -129,7 +188,7 @@ public class Cannon {
             if (SAFETY_SWITCH.get()) {
                 // Not loaded!
                 if (sInstance == null) {
-                    sInstance = new Cannon(context, appName);
+                    sInstance = new Cannon(context, appName, parseThreadPoolSize);
                     sCannonAuthenticatorEnabled = false;
                     SAFETY_SWITCH.set(false);
                 }
@@ -148,6 +207,52 @@ public class Cannon {
         sResourcePoints.put(resourcePoint.getClass(), resourcePoint);
     }
 
+    /**
+     * Get the prepared instance of a resource point. Resource points that haven't been prepared
+     * are created on first use, provided they have a public no-argument constructor.
+     *
+     * @param classOfResourcePoint {@link java.lang.Class} of {@link com.overturelabs.cannon.toolbox.ResourcePoint}.
+     * @param <T>                  Type of expected response object.
+     * @return Returns the resource point.
+     * @throws IllegalStateException Thrown when the resource point wasn't prepared and can't be created.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ResourcePoint<T> getResourcePoint(Class<? extends ResourcePoint<T>> classOfResourcePoint) {
+        ResourcePoint<?> resourcePoint = sResourcePoints.get(classOfResourcePoint);
+
+        if (resourcePoint == null) {
+            try {
+                resourcePoint = classOfResourcePoint.newInstance();
+            } catch (InstantiationException e) {
+                throw new IllegalStateException(classOfResourcePoint.getName()
+                        + " was not prepared, and has no public no-argument constructor.", e);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(classOfResourcePoint.getName()
+                        + " was not prepared, and has no public no-argument constructor.", e);
+            }
+
+            // Another thread may have beaten us to it, in which case its instance wins.
+            ResourcePoint<?> existing = sResourcePoints.putIfAbsent(classOfResourcePoint, resourcePoint);
+            if (existing != null) {
+                resourcePoint = existing;
+            }
+        }
+
+        // Safe, the map only ever holds instances of their own class.
+        return (ResourcePoint<T>) resourcePoint;
+    }
+
+    /**
+     * Start building a request to a resource point.
+     *
+     * @param classOfResourcePoint {@link java.lang.Class} of {@link com.overturelabs.cannon.toolbox.ResourcePoint}.
+     * @param <T>                  Type of expected response object.
+     * @return Returns a new {@link com.overturelabs.cannon.toolbox.RequestBuilder}.
+     */
+    public static <T> RequestBuilder<T> request(Class<? extends ResourcePoint<T>> classOfResourcePoint) {
+        return getResourcePoint(classOfResourcePoint).newRequest();
+    }
+
     /**
      * Prepare a list of resource points for firing.
      *
@@ -175,18 +280,36 @@ public class Cannon {
                     && sInstance != null && sRequestQueue != null;
             if (!result) return false;
 
-            if (sCannonAuthenticatorEnabled &&
+            if (request instanceof GenericRequest) {
+                sParseDelivery.defer((GenericRequest<?>) request);
+            }
+
+            final CannonAuthenticator authenticator = resolveAuthenticator(request);
+            if (authenticator.isEnabled() &&
                     !(request instanceof RefreshRequest) &&
-                    CannonAuthenticator
-                        .getInstance()
-                        .didRefreshRequestExecute(request)) {
+                    authenticator.didRefreshRequestExecute(request)) {
                 return true;
             } else {
-                return sRequestQueue.add(request) != null;
+                return getRequestQueue(request).add(request) != null;
             }
         }
     }
 
+    /**
+     * Cancels all requests fired with the given tag. Refer to {@link com.android.volley.Request#setTag(Object)}.
+     *
+     * @param tag Tag of the requests to cancel.
+     * @throws NotLoadedException OMGZ! ZE CANNON IS NOT ZE LOADED! If the Cannon is not loaded, we can't fire it, can we?
+     */
+    public static void cancelAll(Object tag) throws NotLoadedException {
+        if (SAFETY_SWITCH.get()) {
+            throw new NotLoadedException();
+        } else {
+            sRequestQueue.cancelAll(tag);
+            sTransferRequestQueue.cancelAll(tag);
+        }
+    }
+
     /**
      * CONCENTRATE FIRE AT ZE POINT! FIRE! Fires a simple request at the resource point.
      *
@@ -242,17 +365,23 @@ public class Cannon {
                                      Response.Listener<T> successListener,
                                      Response.ErrorListener errorListener)
             throws NotLoadedException, UnsupportedEncodingException {
-        ResourcePoint<T> resourcePoint = (ResourcePoint<T>) sResourcePoints.get(classOfResourcePoint);
-
-        String url;
+        ResourcePoint<T> resourcePoint = getResourcePoint(classOfResourcePoint);
 
         if (method == Request.Method.GET) {
-            url = resourcePoint.getUrl(resourcePathParams, requestParams, encoding);
+            String url = resourcePoint.getUrl(resourcePathParams, requestParams, encoding);
+
+            // Same resource, same cache entry, however the query params happen to be ordered.
+            return fire(new GenericRequest<>(method, url, requestHeaders, oAuth2Token, requestParams, resourcePoint.getResponseParser(), successListener, errorListener)
+                    .setCacheKey(resourcePoint.getCacheKey(resourcePathParams, requestParams, encoding))
+                    .setAuthenticator(resourcePoint.getAuthenticator())
+                    .setBandwidthLimiter(resourcePoint.getBandwidthLimiter()));
         } else {
-            url = resourcePoint.getUrl(resourcePathParams, encoding);
-        }
+            String url = resourcePoint.getUrl(resourcePathParams, encoding);
 
-        return fire(new GenericRequest<>(method, url, requestHeaders, oAuth2Token, requestParams, resourcePoint.getResponseParser(), successListener, errorListener));
+            return fire(new GenericRequest<>(method, url, requestHeaders, oAuth2Token, requestParams, resourcePoint.getResponseParser(), successListener, errorListener)
+                    .setAuthenticator(resourcePoint.getAuthenticator())
+                    .setBandwidthLimiter(resourcePoint.getBandwidthLimiter()));
+        }
     }
 
     /**
@@ -320,7 +449,7 @@ public class Cannon {
                                      Response.Listener<T> successListener,
                                      Response.ErrorListener errorListener)
             throws NotLoadedException, UnsupportedEncodingException {
-        ResourcePoint<T> resourcePoint = (ResourcePoint<T>) sResourcePoints.get(classOfResourcePoint);
+        ResourcePoint<T> resourcePoint = getResourcePoint(classOfResourcePoint);
 
         String url;
 
@@ -330,11 +459,13 @@ public class Cannon {
             url = resourcePoint.getUrl(resourcePathParams, encoding);
         }
 
-        return fire(new MultipartRequest<>(method, url, requestHeaders, oAuth2Token, requestParams, files, resourcePoint.getResponseParser(), successListener, errorListener));
+        return fire(new MultipartRequest<>(method, url, requestHeaders, oAuth2Token, requestParams, files, resourcePoint.getResponseParser(), successListener, errorListener)
+                .setAuthenticator(resourcePoint.getAuthenticator())
+                .setBandwidthLimiter(resourcePoint.getBandwidthLimiter()));
     }
 
     /**
-     * To fire a refresh request
+     * To fire a refresh request from within the refresh callback of an authenticator, which the request belongs to.
      */
     public static <T> boolean fireRefreshRequest(Class<? extends ResourcePoint<T>> classOfResourcePoint,
                                      int method,
@@ -345,7 +476,39 @@ public class Cannon {
                                      Response.Listener<T> successListener,
                                      Response.ErrorListener errorListener)
             throws NotLoadedException, UnsupportedEncodingException {
-        ResourcePoint<T> resourcePoint = (ResourcePoint<T>) sResourcePoints.get(classOfResourcePoint);
+        return fireRefreshRequest(null, classOfResourcePoint, method, resourcePathParams, requestHeaders, requestParams, encoding, successListener, errorListener);
+    }
+
+    /**
+     * To fire a refresh request for the given authenticator, e.g. once the refresh callback fetched
+     * the refresh token asynchronously.
+     *
+     * @param authenticator        {@link com.overturelabs.cannon.toolbox.CannonAuthenticator} to refresh the token of,
+     *                             or null for the one whose refresh callback is running.
+     * @param classOfResourcePoint {@link java.lang.Class} of {@link com.overturelabs.cannon.toolbox.ResourcePoint}.
+     * @param method               HTTP request method. Refer to {@link com.android.volley.Request.Method}.
+     * @param resourcePathParams   Parameters for populating placeholders in the skeleton resource path.
+     * @param requestHeaders       Request headers.
+     * @param requestParams        Request body, or URL queries if method is {@code GET}.
+     * @param encoding             Charset to encode the URL in, or null for {@code UTF-8}.
+     * @param successListener      Success {@link com.android.volley.Response.Listener}.
+     * @param errorListener        {@link com.android.volley.Response.ErrorListener}.
+     * @param <T>                  Type of expected response object.
+     * @return Returns true if cannon was fired, false if otherwise.
+     * @throws NotLoadedException OMGZ! ZE CANNON IS NOT ZE LOADED! If the Cannon is not loaded, we can't fire it, can we?
+     * @throws java.io.UnsupportedEncodingException Thrown when value cannot be encoded.
+     */
+    public static <T> boolean fireRefreshRequest(CannonAuthenticator authenticator,
+                                     Class<? extends ResourcePoint<T>> classOfResourcePoint,
+                                     int method,
+                                     final Map<String, String> resourcePathParams,
+                                     final Map<String, String> requestHeaders,
+                                     final Map<String, String> requestParams,
+                                     String encoding,
+                                     Response.Listener<T> successListener,
+                                     Response.ErrorListener errorListener)
+            throws NotLoadedException, UnsupportedEncodingException {
+        ResourcePoint<T> resourcePoint = getResourcePoint(classOfResourcePoint);
 
         String url;
         
@@ -356,16 +519,137 @@ public class Cannon {
             url = resourcePoint.getUrl(resourcePathParams, encoding);
         }
 
-        return fire(new RefreshRequest<>(method, url, requestHeaders, requestParams, resourcePoint.getResponseParser(), successListener, errorListener));
+        return fire(new RefreshRequest<>(method, url, requestHeaders, requestParams, resourcePoint.getResponseParser(), successListener, errorListener)
+                .setAuthenticator(authenticator));
     }
 
     public static String getUserAgent() {
-        // Don't lock on static methods, we'll be locking the entire class.
-        // We lock on the safety switch to make sure the string we get is
-        // not in the midst of a write cycle.
-        synchronized (SAFETY_SWITCH) {
-            return sUserAgent;
+        return sUserAgent;
+    }
+
+    /**
+     * Returns the headers attached to every request authenticated by the default authenticator.
+     * Refer to {@link #getBaseHeaders(com.overturelabs.cannon.toolbox.CannonAuthenticator)}.
+     *
+     * @return Returns the current {@link com.overturelabs.cannon.toolbox.HeaderSet}.
+     */
+    public static HeaderSet getBaseHeaders() {
+        return getBaseHeaders(CannonAuthenticator.getInstance());
+    }
+
+    /**
+     * Returns the headers attached to every request. The set is only rebuilt when the user agent
+     * or the auth token changed since the last call, so this neither locks nor builds strings.
+     * Should two threads rebuild it at the same time, they build equal sets, and either one wins.
+     *
+     * @param authenticator Authenticator of the request, or null for none.
+     * @return Returns the current {@link com.overturelabs.cannon.toolbox.HeaderSet}.
+     */
+    public static HeaderSet getBaseHeaders(CannonAuthenticator authenticator) {
+        final String userAgent = sUserAgent;
+
+        if (authenticator != null && authenticator.isEnabled()) {
+            return authenticator.getHeaderSet(userAgent);
         }
+
+        HeaderSet headers = sBaseHeaders;
+        if (!headers.isFor(userAgent, null)) {
+            headers = new HeaderSet(userAgent, null);
+            sBaseHeaders = headers;
+        }
+
+        return headers;
+    }
+
+    /**
+     * Registers an authenticator for a backend with its own auth. Requests to URLs under the base URL
+     * are authenticated by it, instead of the default authenticator. Where base URLs are nested,
+     * the longest one wins.
+     *
+     * @param baseUrl       Base URL of the backend, e.g. <code>https://api.example.com/v2</code>.
+     * @param authenticator {@link com.overturelabs.cannon.toolbox.CannonAuthenticator} for the backend.
+     */
+    public static void registerAuthenticator(String baseUrl, CannonAuthenticator authenticator) {
+        sAuthenticators.put(trimBaseUrl(UrlBuilder.canonicalizeBaseUrl(baseUrl)), authenticator);
+    }
+
+    /**
+     * Unregisters the authenticator of a backend, and invalidates it.
+     *
+     * @param baseUrl Base URL the authenticator was registered for.
+     */
+    public static void unregisterAuthenticator(String baseUrl) {
+        CannonAuthenticator authenticator = sAuthenticators.remove(trimBaseUrl(UrlBuilder.canonicalizeBaseUrl(baseUrl)));
+
+        if (authenticator != null) {
+            authenticator.invalidate();
+        }
+    }
+
+    /**
+     * Resolves the authenticator of a request, and remembers it on the request. Refresh requests
+     * belong to the authenticator they were fired for, or else the one whose refresh callback fired them.
+     * Other requests belong to the authenticator registered for their URL.
+     */
+    private static CannonAuthenticator resolveAuthenticator(Request request) {
+        if (!(request instanceof GenericRequest)) {
+            return findAuthenticator(request.getUrl());
+        }
+
+        final GenericRequest<?> genericRequest = (GenericRequest<?>) request;
+
+        CannonAuthenticator authenticator = genericRequest.getAuthenticator();
+        if (authenticator == null) {
+            authenticator = request instanceof RefreshRequest
+                    ? CannonAuthenticator.getRefreshingInstance()
+                    : findAuthenticator(request.getUrl());
+            genericRequest.setAuthenticator(authenticator);
+        }
+
+        return authenticator;
+    }
+
+    private static CannonAuthenticator findAuthenticator(String url) {
+        if (sAuthenticators.isEmpty()) {
+            return CannonAuthenticator.getInstance();
+        }
+
+        url = UrlBuilder.canonicalizeBaseUrl(url);
+
+        String longestBaseUrl = null;
+        CannonAuthenticator authenticator = CannonAuthenticator.getInstance();
+        for (Map.Entry<String, CannonAuthenticator> entry : sAuthenticators.entrySet()) {
+            String baseUrl = entry.getKey();
+
+            if (url.startsWith(baseUrl)
+                    && (url.length() == baseUrl.length() || "/?#".indexOf(url.charAt(baseUrl.length())) != -1)
+                    && (longestBaseUrl == null || baseUrl.length() > longestBaseUrl.length())) {
+                longestBaseUrl = baseUrl;
+                authenticator = entry.getValue();
+            }
+        }
+
+        return authenticator;
+    }
+
+    private static void clearDirectory(File directory) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            file.delete();
+        }
+    }
+
+    private static String trimBaseUrl(String baseUrl) {
+        int end = baseUrl.length();
+        while (end > 0 && baseUrl.charAt(end - 1) == '/') {
+            end--;
+        }
+
+        return baseUrl.substring(0, end);
     }
 
     /**
@@ -404,6 +688,14 @@ public class Cannon {
         return sCannonAuthenticatorEnabled;
     }
 
+    /**
+     * Adds a request to the processing/network queue, bypassing the authenticator.
+     * @param request
+     */
+    public static void addRequest(Request request) {
+        getRequestQueue(request).add(request);
+    }
+
     /**
      * Adds a queue of requests to the processing/network queue
      * @param requests
@@ -411,11 +703,48 @@ public class Cannon {
     public static void addRequestQueue(Queue<Request> requests) {
         while (!requests.isEmpty()) {
             Request request = requests.poll();
-            sRequestQueue.add(request);
+            getRequestQueue(request).add(request);
+        }
+    }
+
+    /**
+     * @return Returns the queue for the request. Transfers, refer to
+     * {@link com.overturelabs.cannon.toolbox.GenericRequest#isTransfer()}, go to the transfer queue.
+     */
+    private static RequestQueue getRequestQueue(Request request) {
+        if (request instanceof GenericRequest && ((GenericRequest<?>) request).isTransfer()) {
+            return sTransferRequestQueue;
         }
+
+        return sRequestQueue;
+    }
+
+    /**
+     * Registers a custom type adapter with the {@link com.google.gson.Gson} instance shared
+     * by all resource points. Register your adapters once, right after loading the cannon.
+     *
+     * @param type        Type of the objects handled by the adapter.
+     * @param typeAdapter Type adapter, serializer, deserializer or instance creator.
+     */
+    public static void registerTypeAdapter(Type type, Object typeAdapter) {
+        GsonRegistry.registerTypeAdapter(type, typeAdapter);
+    }
+
+    /**
+     * Registers a custom type adapter factory with the {@link com.google.gson.Gson} instance
+     * shared by all resource points. Register your factories once, right after loading the cannon.
+     *
+     * @param factory Type adapter factory.
+     */
+    public static void registerTypeAdapterFactory(TypeAdapterFactory factory) {
+        GsonRegistry.registerTypeAdapterFactory(factory);
+    }
+
+    public static Gson getGson() {
+        return GsonRegistry.getGson();
     }
 
-    public static ImageLoader getImageLoader() throws NotLoadedException {
+    public static CannonImageLoader getImageLoader() throws NotLoadedException {
         /**
          * No need to lock on SAFETY_SWITCH here since we implicitly assumes
          * that Cannon is loaded before user can call this function.
@@ -428,6 +757,27 @@ public class Cannon {
         }
     }
 
+    /**
+     * @return Returns the {@link com.overturelabs.cannon.toolbox.ParseDelivery}, which keeps metrics
+     *         on how long responses wait for a parse thread and how long they take to parse.
+     * @throws NotLoadedException OMGZ! ZE CANNON IS NOT ZE LOADED!
+     */
+    public static ParseDelivery getParseDelivery() throws NotLoadedException {
+        if (SAFETY_SWITCH.get()) {
+            throw new NotLoadedException();
+        } else {
+            return sParseDelivery;
+        }
+    }
+
+    public static BandwidthMeter getBandwidthMeter() throws NotLoadedException {
+        if (SAFETY_SWITCH.get()) {
+            throw new NotLoadedException();
+        } else {
+            return sBandwidthMeter;
+        }
+    }
+
     public static class NotLoadedException extends Exception {
 
         public NotLoadedException() {
@@ -0,0 +1,408 @@
+package com.overturelabs.cannon;
+
+import android.graphics.Bitmap;
+import android.widget.ImageView.ScaleType;
+
+import com.android.volley.Request;
+import com.android.volley.RequestQueue;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+import com.android.volley.toolbox.ImageLoader;
+import com.android.volley.toolbox.ImageRequest;
+import com.overturelabs.cannon.toolbox.BandwidthMeter;
+import com.overturelabs.cannon.toolbox.ImageResourcePoint;
+import com.overturelabs.cannon.toolbox.TiledImage;
+import com.overturelabs.cannon.toolbox.TiledImageRequest;
+
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link com.android.volley.toolbox.ImageLoader} that schedules image requests by
+ * the visibility of their targets.
+ * <br/>
+ * Images for visible targets are fetched at {@link com.android.volley.Request.Priority#HIGH}
+ * while prefetches for off-screen targets are fetched at {@link com.android.volley.Request.Priority#LOW}.
+ * Requests can be grouped under a tag (e.g. a list item or a screen) so that they can be
+ * cancelled together once their targets scroll away.
+ * <br/>
+ * The loader should be backed by a request queue that is separate from the API request
+ * queue, so that the number of concurrent image fetches is capped independently of API traffic.
+ * <br/>
+ * Images served by an {@link com.overturelabs.cannon.toolbox.ImageResourcePoint} are fetched in the
+ * variant that suits the measured bandwidth, and upgraded later if the bandwidth allows.
+ * <br/>
+ * Very large images can be requested with {@link #getTiled(String, Response.Listener, Response.ErrorListener)},
+ * which keeps them encoded on disk and decodes only the regions that are displayed.
+ * <br/>
+ * Like {@link com.android.volley.toolbox.ImageLoader}, all methods must be called from the main thread.
+ */
+public class CannonImageLoader extends ImageLoader {
+    private final RequestQueue mRequestQueue;
+    private final BandwidthMeter mBandwidthMeter;
+    private final File mTileDirectory;
+    private final TileLruCache mTileCache = new TileLruCache();
+
+    /**
+     * Tagged image containers that are still waiting for a response. Only touched on the main thread.
+     */
+    private final HashMap<Object, Set<ImageContainer>> mTaggedContainers = new HashMap<>();
+
+    /**
+     * Priority to use for the next request made by {@link #makeImageRequest}. Since
+     * {@link com.android.volley.toolbox.ImageLoader#get} creates the request synchronously on
+     * the main thread, we hand the priority over through this field.
+     */
+    private Request.Priority mNextPriority = Request.Priority.LOW;
+
+    /**
+     * Construct a {@link com.overturelabs.cannon.CannonImageLoader}.
+     *
+     * @param queue          {@link com.android.volley.RequestQueue} for image requests.
+     * @param imageCache     {@link com.android.volley.toolbox.ImageLoader.ImageCache} for decoded images.
+     * @param bandwidthMeter {@link com.overturelabs.cannon.toolbox.BandwidthMeter} for selecting image variants.
+     * @param tileDirectory  Directory to keep encoded tiled images in.
+     */
+    public CannonImageLoader(RequestQueue queue, ImageCache imageCache,
+                             BandwidthMeter bandwidthMeter, File tileDirectory) {
+        super(queue, imageCache);
+
+        mRequestQueue = queue;
+        mBandwidthMeter = bandwidthMeter;
+        mTileDirectory = tileDirectory;
+    }
+
+    /**
+     * Issues an image request for a target.
+     *
+     * @param requestUrl URL of the image.
+     * @param listener   {@link com.android.volley.toolbox.ImageLoader.ImageListener} to receive the image.
+     * @param maxWidth   Maximum width of the decoded image, or 0 to ignore.
+     * @param maxHeight  Maximum height of the decoded image, or 0 to ignore.
+     * @param scaleType  {@link android.widget.ImageView.ScaleType} of the target.
+     * @param tag        Tag to group the request under, for {@link #cancelAll(Object)}. May be null.
+     * @param isVisible  True if the target is currently visible, false if this is a prefetch.
+     * @return Returns an {@link com.android.volley.toolbox.ImageLoader.ImageContainer} for the request.
+     */
+    public ImageContainer get(String requestUrl, ImageListener listener,
+                              int maxWidth, int maxHeight, ScaleType scaleType,
+                              Object tag, boolean isVisible) {
+        TaggedImageListener taggedListener = null;
+        if (tag != null) {
+            taggedListener = new TaggedImageListener(tag, listener);
+            listener = taggedListener;
+        }
+
+        ImageContainer container;
+        mNextPriority = isVisible ? Request.Priority.HIGH : Request.Priority.LOW;
+        try {
+            container = get(requestUrl, listener, maxWidth, maxHeight, scaleType);
+        } finally {
+            mNextPriority = Request.Priority.LOW;
+        }
+
+        // Only track containers that are still waiting, cache hits are delivered immediately.
+        if (taggedListener != null && !taggedListener.isDone()) {
+            taggedListener.setContainer(container);
+
+            Set<ImageContainer> containers = mTaggedContainers.get(tag);
+            if (containers == null) {
+                containers = new HashSet<>();
+                mTaggedContainers.put(tag, containers);
+            }
+            containers.add(container);
+        }
+
+        return container;
+    }
+
+    /**
+     * Issues an image request for a target, picking the variant of the image that suits the
+     * target size and the current connection quality. If a smaller variant was picked because of
+     * a slow connection, and the connection has improved by the time it arrives, a better variant
+     * is fetched in the background and delivered to the same listener.
+     *
+     * @param imageResourcePoint {@link com.overturelabs.cannon.toolbox.ImageResourcePoint} serving the image.
+     * @param resourcePathParams Parameters for populating placeholders in the skeleton resource path.
+     * @param listener           {@link com.android.volley.toolbox.ImageLoader.ImageListener} to receive the image.
+     * @param maxWidth           Maximum width of the decoded image, or 0 to ignore.
+     * @param maxHeight          Maximum height of the decoded image, or 0 to ignore.
+     * @param scaleType          {@link android.widget.ImageView.ScaleType} of the target.
+     * @param tag                Tag to group the requests under, for {@link #cancelAll(Object)}. May be null.
+     * @param isVisible          True if the target is currently visible, false if this is a prefetch.
+     * @return Returns an {@link com.android.volley.toolbox.ImageLoader.ImageContainer}, whose
+     *         {@link com.android.volley.toolbox.ImageLoader.ImageContainer#cancelRequest()} cancels
+     *         upgrades as well.
+     * @throws UnsupportedEncodingException Thrown when a path parameter cannot be encoded.
+     */
+    public ImageContainer get(ImageResourcePoint imageResourcePoint, Map<String, String> resourcePathParams,
+                              ImageListener listener, int maxWidth, int maxHeight, ScaleType scaleType,
+                              Object tag, boolean isVisible) throws UnsupportedEncodingException {
+        ImageResourcePoint.Variant variant =
+                imageResourcePoint.selectVariant(maxWidth, mBandwidthMeter.getConnectionQuality());
+
+        VariantImageListener variantListener = new VariantImageListener(
+                imageResourcePoint, resourcePathParams, variant, listener,
+                maxWidth, maxHeight, scaleType, tag, null);
+
+        String url = variant.getUrl(resourcePathParams);
+        variantListener.mContainer = get(url, variantListener, maxWidth, maxHeight, scaleType, tag, isVisible);
+
+        return new VariantImageContainer(url, variantListener);
+    }
+
+    /**
+     * Cancels all pending image requests issued under a tag, e.g. when the targets scrolled away.
+     * Requests that are shared with containers of other tags will continue for those containers.
+     *
+     * @param tag Tag used when the requests were issued.
+     */
+    public void cancelAll(Object tag) {
+        Set<ImageContainer> containers = mTaggedContainers.remove(tag);
+        if (containers == null) return;
+
+        for (ImageContainer container : containers) {
+            container.cancelRequest();
+        }
+    }
+
+    /**
+     * Issues a request for a very large image, such as a map or a scanned document.
+     * The image is kept encoded on disk and delivered as a {@link com.overturelabs.cannon.toolbox.TiledImage},
+     * which decodes regions on demand into a tile cache that is bounded by memory.
+     * <br/>
+     * Remember to {@link com.overturelabs.cannon.toolbox.TiledImage#recycle()} the image once it is no longer displayed.
+     *
+     * @param requestUrl      URL of the image.
+     * @param successListener Success {@link com.android.volley.Response.Listener}.
+     * @param errorListener   {@link com.android.volley.Response.ErrorListener}.
+     * @return Returns the request, so that it can be cancelled.
+     */
+    public Request<TiledImage> getTiled(String requestUrl,
+                                        Response.Listener<TiledImage> successListener,
+                                        Response.ErrorListener errorListener) {
+        return mRequestQueue.add(
+                new TiledImageRequest(requestUrl, mTileDirectory, mTileCache, successListener, errorListener));
+    }
+
+    @Override
+    protected Request<Bitmap> makeImageRequest(String requestUrl, int maxWidth, int maxHeight,
+                                               ScaleType scaleType, final String cacheKey) {
+        return new PrioritizedImageRequest(requestUrl, new Response.Listener<Bitmap>() {
+            @Override
+            public void onResponse(Bitmap response) {
+                onGetImageSuccess(cacheKey, response);
+            }
+        }, maxWidth, maxHeight, scaleType, Bitmap.Config.RGB_565, new Response.ErrorListener() {
+            @Override
+            public void onErrorResponse(VolleyError error) {
+                onGetImageError(cacheKey, error);
+            }
+        }, mNextPriority);
+    }
+
+    private void untrack(Object tag, ImageContainer container) {
+        Set<ImageContainer> containers = mTaggedContainers.get(tag);
+        if (containers == null) return;
+
+        containers.remove(container);
+        if (containers.isEmpty()) {
+            mTaggedContainers.remove(tag);
+        }
+    }
+
+    /**
+     * {@link com.android.volley.toolbox.ImageRequest} with a fixed priority.
+     */
+    private static class PrioritizedImageRequest extends ImageRequest {
+        private final Priority mPriority;
+
+        public PrioritizedImageRequest(String url, Response.Listener<Bitmap> listener,
+                                       int maxWidth, int maxHeight, ScaleType scaleType,
+                                       Bitmap.Config decodeConfig, Response.ErrorListener errorListener,
+                                       Priority priority) {
+            super(url, listener, maxWidth, maxHeight, scaleType, decodeConfig, errorListener);
+
+            mPriority = priority;
+        }
+
+        @Override
+        public Priority getPriority() {
+            return mPriority;
+        }
+    }
+
+    /**
+     * Container handed out for images served by an {@link com.overturelabs.cannon.toolbox.ImageResourcePoint}.
+     * It stands for the image and all of its upgrades, so that cancelling it cancels the upgrades too.
+     */
+    private class VariantImageContainer extends ImageContainer {
+        private final VariantImageListener mRoot;
+
+        public VariantImageContainer(String requestUrl, VariantImageListener root) {
+            super(null, requestUrl, null, null);
+
+            mRoot = root;
+        }
+
+        @Override
+        public void cancelRequest() {
+            mRoot.cancel();
+        }
+
+        @Override
+        public Bitmap getBitmap() {
+            return mRoot.mDelivered != null ? mRoot.mDelivered.getBitmap() : null;
+        }
+
+        @Override
+        public String getRequestUrl() {
+            return mRoot.mDelivered != null ? mRoot.mDelivered.getRequestUrl() : super.getRequestUrl();
+        }
+    }
+
+    /**
+     * Listener that fetches a better variant of the image once the current one arrives,
+     * if the connection quality allows it. The listener of the first request is the root,
+     * which keeps track of the containers of the whole chain.
+     */
+    private class VariantImageListener implements ImageListener {
+        private final ImageResourcePoint mImageResourcePoint;
+        private final Map<String, String> mResourcePathParams;
+        private final ImageResourcePoint.Variant mVariant;
+        private final ImageListener mListener;
+        private final int mMaxWidth;
+        private final int mMaxHeight;
+        private final ScaleType mScaleType;
+        private final Object mTag;
+        private final VariantImageListener mRoot;
+        private final boolean mIsUpgrade;
+
+        // Only used on the root.
+        private ImageContainer mContainer;
+        private ImageContainer mUpgradeContainer;
+        private ImageContainer mDelivered;
+        private boolean mIsCanceled = false;
+
+        /**
+         * @param root Listener of the first request, or null if this is the first request.
+         */
+        public VariantImageListener(ImageResourcePoint imageResourcePoint, Map<String, String> resourcePathParams,
+                                    ImageResourcePoint.Variant variant, ImageListener listener,
+                                    int maxWidth, int maxHeight, ScaleType scaleType,
+                                    Object tag, VariantImageListener root) {
+            mImageResourcePoint = imageResourcePoint;
+            mResourcePathParams = resourcePathParams;
+            mVariant = variant;
+            mListener = listener;
+            mMaxWidth = maxWidth;
+            mMaxHeight = maxHeight;
+            mScaleType = scaleType;
+            mTag = tag;
+            mRoot = root != null ? root : this;
+            mIsUpgrade = root != null;
+        }
+
+        /**
+         * Cancels the first request and any upgrade. Must be called on the root.
+         */
+        public void cancel() {
+            mIsCanceled = true;
+
+            if (mContainer != null) {
+                mContainer.cancelRequest();
+            }
+            if (mUpgradeContainer != null) {
+                mUpgradeContainer.cancelRequest();
+                mUpgradeContainer = null;
+            }
+        }
+
+        @Override
+        public void onResponse(ImageContainer response, boolean isImmediate) {
+            if (mRoot.mIsCanceled) return;
+
+            if (response.getBitmap() == null) {
+                // Upgrades must not replace the image we already delivered with a placeholder.
+                if (!mIsUpgrade) {
+                    mListener.onResponse(response, isImmediate);
+                }
+                return;
+            }
+
+            mRoot.mDelivered = response;
+            mListener.onResponse(response, isImmediate);
+
+            ImageResourcePoint.Variant better =
+                    mImageResourcePoint.selectVariant(mMaxWidth, mBandwidthMeter.getConnectionQuality());
+            if (better.getWidth() <= mVariant.getWidth() || mRoot.mIsCanceled) return;
+
+            try {
+                // Kept on the root, so that cancelling the container handed out cancels the upgrade.
+                mRoot.mUpgradeContainer = get(better.getUrl(mResourcePathParams),
+                        new VariantImageListener(mImageResourcePoint, mResourcePathParams, better, mListener,
+                                mMaxWidth, mMaxHeight, mScaleType, mTag, mRoot),
+                        mMaxWidth, mMaxHeight, mScaleType, mTag, false);
+            } catch (UnsupportedEncodingException e) {
+                // Can't happen, the same parameters were encoded for the current variant.
+            }
+        }
+
+        @Override
+        public void onErrorResponse(VolleyError error) {
+            if (mRoot.mIsCanceled) return;
+
+            // A failed upgrade is not an error, the caller already has an image.
+            if (!mIsUpgrade) {
+                mListener.onErrorResponse(error);
+            }
+        }
+    }
+
+    /**
+     * Listener that stops tracking its container once the request completes.
+     */
+    private class TaggedImageListener implements ImageListener {
+        private final Object mTag;
+        private final ImageListener mListener;
+        private ImageContainer mContainer;
+        private boolean mIsDone = false;
+
+        public TaggedImageListener(Object tag, ImageListener listener) {
+            mTag = tag;
+            mListener = listener;
+        }
+
+        public boolean isDone() {
+            return mIsDone;
+        }
+
+        public void setContainer(ImageContainer container) {
+            mContainer = container;
+        }
+
+        @Override
+        public void onResponse(ImageContainer response, boolean isImmediate) {
+            if (response.getBitmap() != null) {
+                mIsDone = true;
+                untrack(mTag, response);
+            }
+
+            mListener.onResponse(response, isImmediate);
+        }
+
+        @Override
+        public void onErrorResponse(VolleyError error) {
+            mIsDone = true;
+            if (mContainer != null) {
+                untrack(mTag, mContainer);
+            }
+
+            mListener.onErrorResponse(error);
+        }
+    }
+}
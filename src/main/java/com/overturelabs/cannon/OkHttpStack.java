@@ -32,6 +32,13 @@ package com.overturelabs.cannon;
 import com.android.volley.AuthFailureError;
 import com.android.volley.Request;
 import com.android.volley.toolbox.HttpStack;
+import com.overturelabs.cannon.toolbox.BandwidthLimiter;
+import com.overturelabs.cannon.toolbox.GenericRequest;
+import com.overturelabs.cannon.toolbox.ProgressInputStream;
+import com.overturelabs.cannon.toolbox.ProgressListener;
+import com.overturelabs.cannon.toolbox.ProgressRequestBody;
+import com.overturelabs.cannon.toolbox.StreamingRequest;
+import com.overturelabs.cannon.toolbox.StreamingResponseRequest;
 import com.squareup.okhttp.Call;
 import com.squareup.okhttp.Headers;
 import com.squareup.okhttp.MediaType;
@@ -50,7 +57,9 @@ import org.apache.http.message.BasicHeader;
 import org.apache.http.message.BasicHttpResponse;
 import org.apache.http.message.BasicStatusLine;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -100,7 +109,7 @@ public class OkHttpStack implements HttpStack {
 
         StatusLine responseStatus = new BasicStatusLine(parseProtocol(okHttpResponse.protocol()), okHttpResponse.code(), okHttpResponse.message());
         BasicHttpResponse response = new BasicHttpResponse(responseStatus);
-        response.setEntity(entityFromOkHttpResponse(okHttpResponse));
+        response.setEntity(entityFromOkHttpResponse(request, okHttpResponse));
 
         Headers responseHeaders = okHttpResponse.headers();
         for (int i = 0, len = responseHeaders.size(); i < len; i++) {
@@ -113,12 +122,36 @@ public class OkHttpStack implements HttpStack {
         return response;
     }
 
-    private static HttpEntity entityFromOkHttpResponse(Response r) throws IOException {
+    private static HttpEntity entityFromOkHttpResponse(Request<?> request, Response r) throws IOException {
         BasicHttpEntity entity = new BasicHttpEntity();
         ResponseBody body = r.body();
 
-        entity.setContent(body.byteStream());
-        entity.setContentLength(body.contentLength());
+        InputStream content = body.byteStream();
+        if (request instanceof GenericRequest) {
+            final GenericRequest<?> genericRequest = (GenericRequest<?>) request;
+            final ProgressListener listener = genericRequest.getDownloadProgressListener();
+            final BandwidthLimiter limiter = genericRequest.getBandwidthLimiter();
+
+            if (listener != null || limiter != null) {
+                content = new ProgressInputStream(content, body.contentLength(), listener, limiter);
+            }
+        }
+
+        long contentLength = body.contentLength();
+        if (request instanceof StreamingResponseRequest && r.isSuccessful()) {
+            // Streamed to wherever the request keeps it, so Volley gets an empty body to buffer.
+            try {
+                ((StreamingResponseRequest) request).writeResponseBody(content);
+            } finally {
+                content.close();
+            }
+
+            content = new ByteArrayInputStream(new byte[0]);
+            contentLength = 0;
+        }
+
+        entity.setContent(content);
+        entity.setContentLength(contentLength);
         entity.setContentEncoding(r.header("Content-Encoding"));
 
         if (body.contentType() != null) {
@@ -182,11 +215,32 @@ public class OkHttpStack implements HttpStack {
     }
 
     private static RequestBody createRequestBody(Request r) throws AuthFailureError {
-        final byte[] body = r.getBody();
+        RequestBody body = null;
+
+        // Streaming requests write their body straight to the connection, rather than through a byte array.
+        if (r instanceof StreamingRequest) {
+            body = ((StreamingRequest) r).getRequestBody();
+        }
+
         if (body == null) {
-            return RequestBody.create(MediaType.parse("text/plain"), "");
+            final byte[] bytes = r.getBody();
+            if (bytes == null) {
+                return RequestBody.create(MediaType.parse("text/plain"), "");
+            }
+
+            body = RequestBody.create(MediaType.parse(r.getBodyContentType()), bytes);
+        }
+
+        if (r instanceof GenericRequest) {
+            final GenericRequest<?> genericRequest = (GenericRequest<?>) r;
+            final ProgressListener listener = genericRequest.getUploadProgressListener();
+            final BandwidthLimiter limiter = genericRequest.getBandwidthLimiter();
+
+            if (listener != null || limiter != null) {
+                body = new ProgressRequestBody(body, listener, limiter);
+            }
         }
 
-        return RequestBody.create(MediaType.parse(r.getBodyContentType()), body);
+        return body;
     }
 }
\ No newline at end of file
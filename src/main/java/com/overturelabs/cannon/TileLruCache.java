@@ -0,0 +1,42 @@
+package com.overturelabs.cannon;
+
+import android.graphics.Bitmap;
+import android.util.LruCache;
+
+/**
+ * In memory cache for decoded tiles of {@link com.overturelabs.cannon.toolbox.TiledImage}s.
+ * The cache is bounded by the memory used by the tiles, in KiB.
+ */
+public class TileLruCache extends LruCache<String, Bitmap> {
+
+    static int getMaxCacheSize() {
+        int maxMemory = (int) (Runtime.getRuntime().maxMemory() / 1024);
+        return maxMemory / 8;
+    }
+
+    public TileLruCache() {
+        super(getMaxCacheSize());
+    }
+
+    public TileLruCache(int maxSizeInKiB) {
+        super(maxSizeInKiB);
+    }
+
+    /**
+     * Evicts the tiles whose keys start with the given prefix, e.g. all tiles of one image.
+     *
+     * @param prefix Key prefix.
+     */
+    public void evictAll(String prefix) {
+        for (String key : snapshot().keySet()) {
+            if (key.startsWith(prefix)) {
+                remove(key);
+            }
+        }
+    }
+
+    @Override
+    protected int sizeOf(String key, Bitmap value) {
+        return Math.max(1, value.getRowBytes() * value.getHeight() / 1024);
+    }
+}
@@ -0,0 +1,87 @@
+package com.overturelabs.cannon.toolbox;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Token bucket that caps the rate at which bodies are transferred. Share one limiter between
+ * requests to cap their combined rate, e.g. all requests of a background sync, so that they
+ * leave the rest of the bandwidth to foreground requests.
+ * <br/>
+ * Transfers may overdraw the bucket, and then wait until it has refilled. So a transfer larger
+ * than the bucket is paced rather than refused.
+ * <br/>
+ * Waiting blocks the network thread of the transfer. {@link com.overturelabs.Cannon#fire} therefore
+ * sends requests with a limiter as transfers, through a separate queue with two network threads
+ * of its own. So at most two throttled transfers run at once, and other requests are never held up by them.
+ * Refer to {@link com.overturelabs.cannon.toolbox.GenericRequest#isTransfer()}.
+ */
+public class BandwidthLimiter {
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final long mBytesPerSecond;
+    private final long mCapacity;
+
+    // Guarded by this.
+    private double mTokens;
+    private long mLastRefillNanos;
+
+    /**
+     * Construct a {@link com.overturelabs.cannon.toolbox.BandwidthLimiter} that allows bursts of up to a second.
+     *
+     * @param bytesPerSecond Maximum rate in bytes per second.
+     */
+    public BandwidthLimiter(long bytesPerSecond) {
+        this(bytesPerSecond, bytesPerSecond);
+    }
+
+    /**
+     * Construct a {@link com.overturelabs.cannon.toolbox.BandwidthLimiter}.
+     *
+     * @param bytesPerSecond Maximum rate in bytes per second.
+     * @param capacity       Number of bytes that can be transferred at once, after being idle.
+     */
+    public BandwidthLimiter(long bytesPerSecond, long capacity) {
+        if (bytesPerSecond <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Rate and capacity must be positive.");
+        }
+
+        mBytesPerSecond = bytesPerSecond;
+        mCapacity = capacity;
+        mTokens = capacity;
+        mLastRefillNanos = System.nanoTime();
+    }
+
+    public long getBytesPerSecond() {
+        return mBytesPerSecond;
+    }
+
+    /**
+     * Takes tokens for the given number of bytes, and blocks until the bucket is no longer overdrawn.
+     * Must not be called on the main thread.
+     *
+     * @param byteCount Number of bytes about to be transferred, or just transferred.
+     * @throws InterruptedIOException Thrown when the thread is interrupted while waiting.
+     */
+    public void acquire(long byteCount) throws InterruptedIOException {
+        long waitNanos;
+
+        synchronized (this) {
+            final long now = System.nanoTime();
+            mTokens = Math.min(mCapacity, mTokens + (now - mLastRefillNanos) * (double) mBytesPerSecond / NANOS_PER_SECOND);
+            mLastRefillNanos = now;
+
+            mTokens -= byteCount;
+            waitNanos = mTokens >= 0 ? 0 : (long) (-mTokens * NANOS_PER_SECOND / mBytesPerSecond);
+        }
+
+        if (waitNanos > 0) {
+            try {
+                Thread.sleep(waitNanos / NANOS_PER_MILLI, (int) (waitNanos % NANOS_PER_MILLI));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while throttled.");
+            }
+        }
+    }
+}
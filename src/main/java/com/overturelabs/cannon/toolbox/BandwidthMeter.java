@@ -0,0 +1,122 @@
+package com.overturelabs.cannon.toolbox;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.telephony.TelephonyManager;
+
+/**
+ * Keeps a running estimate of the download throughput, measured from completed responses,
+ * and classifies the current connection quality.
+ * <br/>
+ * Until enough samples are collected, the connection quality is guessed from the network type.
+ */
+public class BandwidthMeter {
+    private static final long MIN_SAMPLE_BYTES = 10 * 1024; // Smaller responses are dominated by latency
+    private static final int MIN_SAMPLE_COUNT = 3;
+    private static final double SAMPLE_WEIGHT = 0.25; // Weight of the newest sample in the running average
+
+    private static final double POOR_KBPS = 150;
+    private static final double MODERATE_KBPS = 550;
+    private static final double GOOD_KBPS = 2000;
+
+    public enum ConnectionQuality {
+        UNKNOWN, POOR, MODERATE, GOOD, EXCELLENT
+    }
+
+    private final Context mContext;
+
+    private final Object mLock = new Object();
+    private double mThroughputKbps = 0;
+    private int mSampleCount = 0;
+
+    public BandwidthMeter(Context context) {
+        mContext = context.getApplicationContext();
+    }
+
+    /**
+     * Adds a throughput sample. Samples that are too small to be meaningful are ignored.
+     *
+     * @param bytes     Number of bytes received.
+     * @param elapsedMs Time taken to receive the bytes, in milliseconds.
+     */
+    public void addSample(long bytes, long elapsedMs) {
+        if (bytes < MIN_SAMPLE_BYTES || elapsedMs <= 0) return;
+
+        double kbps = bytes * 8.0 / elapsedMs; // bits per ms is kbit per second
+
+        synchronized (mLock) {
+            if (mSampleCount == 0) {
+                mThroughputKbps = kbps;
+            } else {
+                mThroughputKbps = SAMPLE_WEIGHT * kbps + (1 - SAMPLE_WEIGHT) * mThroughputKbps;
+            }
+            mSampleCount++;
+        }
+    }
+
+    /**
+     * @return Returns the estimated throughput in kbit/s, or 0 if not enough samples were collected.
+     */
+    public double getThroughputKbps() {
+        synchronized (mLock) {
+            return mSampleCount >= MIN_SAMPLE_COUNT ? mThroughputKbps : 0;
+        }
+    }
+
+    /**
+     * @return Returns the quality of the current connection.
+     */
+    public ConnectionQuality getConnectionQuality() {
+        double kbps = getThroughputKbps();
+
+        if (kbps <= 0) {
+            return getConnectionQualityOfNetworkType();
+        } else if (kbps < POOR_KBPS) {
+            return ConnectionQuality.POOR;
+        } else if (kbps < MODERATE_KBPS) {
+            return ConnectionQuality.MODERATE;
+        } else if (kbps < GOOD_KBPS) {
+            return ConnectionQuality.GOOD;
+        } else {
+            return ConnectionQuality.EXCELLENT;
+        }
+    }
+
+    private ConnectionQuality getConnectionQualityOfNetworkType() {
+        ConnectivityManager cm =
+                (ConnectivityManager) mContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+
+        NetworkInfo activeNetwork = cm.getActiveNetworkInfo();
+        if (activeNetwork == null || !activeNetwork.isConnected()) {
+            return ConnectionQuality.UNKNOWN;
+        }
+
+        if (activeNetwork.getType() != ConnectivityManager.TYPE_MOBILE) {
+            return ConnectionQuality.GOOD;
+        }
+
+        switch (activeNetwork.getSubtype()) {
+            case TelephonyManager.NETWORK_TYPE_GPRS:
+            case TelephonyManager.NETWORK_TYPE_EDGE:
+            case TelephonyManager.NETWORK_TYPE_CDMA:
+            case TelephonyManager.NETWORK_TYPE_1xRTT:
+            case TelephonyManager.NETWORK_TYPE_IDEN:
+                return ConnectionQuality.POOR;
+            case TelephonyManager.NETWORK_TYPE_UMTS:
+            case TelephonyManager.NETWORK_TYPE_EVDO_0:
+            case TelephonyManager.NETWORK_TYPE_EVDO_A:
+            case TelephonyManager.NETWORK_TYPE_EVDO_B:
+            case TelephonyManager.NETWORK_TYPE_HSDPA:
+            case TelephonyManager.NETWORK_TYPE_HSUPA:
+            case TelephonyManager.NETWORK_TYPE_HSPA:
+            case TelephonyManager.NETWORK_TYPE_HSPAP:
+            case TelephonyManager.NETWORK_TYPE_EHRPD:
+                return ConnectionQuality.MODERATE;
+            case TelephonyManager.NETWORK_TYPE_LTE:
+                return ConnectionQuality.GOOD;
+            default:
+                return ConnectionQuality.UNKNOWN;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.overturelabs.cannon.toolbox;
 
+import android.os.SystemClock;
+
 import com.android.volley.NetworkResponse;
 import com.android.volley.Request;
 import com.android.volley.VolleyError;
@@ -11,6 +13,8 @@ import com.android.volley.toolbox.HttpStack;
  * Created by derricklee on 4/1/15.
  */
 public class BasicNetworkOOM extends BasicNetwork {
+    private BandwidthMeter mBandwidthMeter;
+
     public BasicNetworkOOM(HttpStack httpStack) {
         super(httpStack);
     }
@@ -19,10 +23,25 @@ public class BasicNetworkOOM extends BasicNetwork {
         super(httpStack, pool);
     }
 
+    public BasicNetworkOOM(HttpStack httpStack, BandwidthMeter bandwidthMeter) {
+        super(httpStack);
+
+        mBandwidthMeter = bandwidthMeter;
+    }
+
     @Override
     public NetworkResponse performRequest(Request<?> request) throws VolleyError {
         try {
-            return super.performRequest(request);
+            long startMs = SystemClock.elapsedRealtime();
+            NetworkResponse response = super.performRequest(request);
+
+            // Streamed responses come without their body, so there's nothing to measure.
+            if (mBandwidthMeter != null && !response.notModified && response.data != null
+                    && !(request instanceof StreamingResponseRequest)) {
+                mBandwidthMeter.addSample(response.data.length, SystemClock.elapsedRealtime() - startMs);
+            }
+
+            return response;
         } catch (java.lang.OutOfMemoryError error) {
             throw new com.overturelabs.cannon.toolbox.OutOfMemoryError();
         }
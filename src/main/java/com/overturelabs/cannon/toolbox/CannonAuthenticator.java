@@ -1,16 +1,52 @@
 package com.overturelabs.cannon.toolbox;
 
+import android.os.Handler;
+import android.os.Looper;
+
 import com.android.volley.Request;
 import com.overturelabs.Cannon;
 
 import java.util.ArrayDeque;
 import java.util.Date;
 import java.util.Queue;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Random;
 
+/**
+ * Keeps the auth token, and refreshes it before it expires.
+ * <br/>
+ * Only one refresh runs at a time. Requests fired while a refresh is running are parked,
+ * and released together once it completes. All state is guarded by a single lock, and
+ * callbacks are always run outside of it.
+ * <br/>
+ * Whenever a token is set, a refresh is scheduled in the background ahead of the refresh window,
+ * so that requests rarely have to wait for one. Failed refreshes are retried with a backoff.
+ * Since scheduled refreshes don't run while the device sleeps, requests that find the token
+ * expiring still start a refresh themselves.
+ * <br/>
+ * Requests rejected with a 401, e.g. because the token was revoked early, are replayed once
+ * the token has been refreshed. Refer to {@link #replayAfterRefresh(Request, String)}.
+ * The number of parked requests is capped, past which requests go out with the token they have.
+ * <br/>
+ * The instance returned by {@link #getInstance()} is used for every backend, unless another
+ * authenticator is registered for it with
+ * {@link com.overturelabs.Cannon#registerAuthenticator(String, CannonAuthenticator)}, or set
+ * on its resource point. Each authenticator refreshes and parks requests on its own, so a refresh
+ * for one backend never holds up requests to another.
+ */
 public class CannonAuthenticator {
     private final long REFRESH_LIMIT = 1000 * 60 * 5; // 5 minutes earlier
+    private final long REFRESH_JITTER = 1000 * 60;    // Up to a minute more, so that clients don't refresh in lockstep
+    private final long MIN_REFRESH_INTERVAL = 1000 * 30;
+    private final long INITIAL_RETRY_DELAY = 1000 * 5;
+    private final long MAX_RETRY_DELAY = 1000 * 60 * 2;
+    private final int MAX_PENDING_REQUESTS = 64; // Past this, requests go out with the token they have
 
+    /**
+     * Fires the refresh request. A refresh request fired from within {@link #execute()} belongs to
+     * the authenticator running the callback. One fired later, e.g. after fetching the refresh token
+     * asynchronously, must name its authenticator, using the {@code fireRefreshRequest} overload of
+     * {@link com.overturelabs.Cannon} that takes one.
+     */
     public interface RefreshResourcePointCallback {
         void execute();
     }
@@ -19,30 +55,112 @@ public class CannonAuthenticator {
         BSDAUTH, CDSA, GSSAPI, JAAS, NMAS, OAUTH, OAUTH2, OID, OIDC, PAM, SASL, SSPI, XUDA
     }
 
-    private String mAuthToken;
-    private long mAuthTokenExpiry;
-    private AuthTokenType mAuthTokenType;
-    private RefreshResourcePointCallback mRefreshResourcePointCallback;
+    private final Object mLock = new Object();
+
+    // Volatile, so that request threads can read them without taking the lock.
+    private volatile String mAuthToken;
+    private volatile long mAuthTokenExpiry;
+    private volatile AuthTokenType mAuthTokenType;
+    private volatile RefreshResourcePointCallback mRefreshResourcePointCallback;
+    private volatile String mAuthorization; // Built once per token, not once per request
 
-    private AtomicBoolean mRefreshRequestIsProcessing = new AtomicBoolean(false);
+    // Guarded by mLock.
+    private boolean mRefreshRequestIsProcessing = false;
     private Queue<Request> mPendingRequestQueue = new ArrayDeque<>();
+    private long mLastRefreshStartedAt = 0l;
+    private int mRetryCount = 0;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Random mRandom = new Random();
+    private final Runnable mScheduledRefresh = new Runnable() {
+        @Override
+        public void run() {
+            refreshInBackground();
+        }
+    };
+
+    private volatile HeaderSet mHeaderSet;
+    private final boolean mIsDefault;
+
+    private static final CannonAuthenticator sInstance = new CannonAuthenticator(true);
 
-    private static CannonAuthenticator sInstance;
+    // Authenticator whose refresh callback is running on this thread, for the refresh request to pick up.
+    private static final ThreadLocal<CannonAuthenticator> sRefreshingInstance = new ThreadLocal<>();
+    private static volatile boolean sHasScopedInstances = false;
+
+    /**
+     * Construct an authenticator for a backend with its own auth. It is enabled as soon as it is
+     * registered or set on a resource point.
+     */
+    public CannonAuthenticator() {
+        this(false);
+        sHasScopedInstances = true;
+    }
+
+    private CannonAuthenticator(boolean isDefault) {
+        mIsDefault = isDefault;
+    }
 
     public static CannonAuthenticator getInstance() {
-        if (sInstance == null) {
-            sInstance = new CannonAuthenticator();
+        return sInstance;
+    }
+
+    /**
+     * @return Returns the authenticator whose refresh callback is running on the calling thread.
+     *         Outside of a refresh callback, that's the default authenticator, as long as it's the only one.
+     * @throws IllegalStateException Thrown outside of a refresh callback once other authenticators exist,
+     *                               since the refresh could be meant for any of them.
+     */
+    public static CannonAuthenticator getRefreshingInstance() {
+        CannonAuthenticator authenticator = sRefreshingInstance.get();
+        if (authenticator != null) {
+            return authenticator;
+        }
+
+        if (sHasScopedInstances) {
+            throw new IllegalStateException("Refresh request fired outside of a refresh callback. "
+                    + "Name its authenticator when firing it.");
         }
 
         return sInstance;
     }
 
+    /**
+     * @return Returns true if the authenticator is in use. The default authenticator is in use while
+     *         {@link com.overturelabs.Cannon#enableAuthenticator} is in effect, others always are.
+     */
+    public boolean isEnabled() {
+        return !mIsDefault || Cannon.isAuthenticatorEnabled();
+    }
+
+    /**
+     * Returns the headers for requests authenticated by this authenticator. The set is rebuilt only
+     * when the user agent or the token changed since the last call.
+     *
+     * @param userAgent User agent string.
+     * @return Returns the current {@link com.overturelabs.cannon.toolbox.HeaderSet}.
+     */
+    public HeaderSet getHeaderSet(String userAgent) {
+        final String authorization = mAuthorization;
+
+        HeaderSet headers = mHeaderSet;
+        if (headers == null || !headers.isFor(userAgent, authorization)) {
+            headers = new HeaderSet(userAgent, authorization);
+            mHeaderSet = headers;
+        }
+
+        return headers;
+    }
+
     public String getAuthToken() {
         return mAuthToken;
     }
 
     public CannonAuthenticator setAuthToken(String authToken) {
-        mAuthToken = authToken;
+        synchronized (mLock) {
+            mAuthToken = authToken;
+            updateAuthorization();
+        }
         return this;
     }
 
@@ -51,7 +169,10 @@ public class CannonAuthenticator {
     }
 
     public CannonAuthenticator setAuthTokenType(AuthTokenType authTokenType) {
-        mAuthTokenType = authTokenType;
+        synchronized (mLock) {
+            mAuthTokenType = authTokenType;
+            updateAuthorization();
+        }
         return this;
     }
 
@@ -60,32 +181,65 @@ public class CannonAuthenticator {
     }
 
     public CannonAuthenticator setAuthTokenExpiry(long authTokenExpiry) {
-        mAuthTokenExpiry = authTokenExpiry;
+        synchronized (mLock) {
+            mAuthTokenExpiry = authTokenExpiry;
+            scheduleRefresh(0);
+        }
         return this;
     }
 
+    /**
+     * Forgets the auth token. Requests parked for a refresh are released without it,
+     * so that they fail like any other unauthenticated request instead of hanging forever.
+     */
     public void invalidate() {
-        mAuthToken = null;
-        mAuthTokenType = null;
-        mAuthTokenExpiry = 0l;
-        mRefreshResourcePointCallback = null;
-        mPendingRequestQueue.clear();
-        mRefreshRequestIsProcessing.getAndSet(false);
+        Queue<Request> pendingRequests;
+
+        synchronized (mLock) {
+            mAuthToken = null;
+            mAuthTokenType = null;
+            mAuthTokenExpiry = 0l;
+            mAuthorization = null;
+            mRefreshResourcePointCallback = null;
+            mRefreshRequestIsProcessing = false;
+            mRetryCount = 0;
+            mHandler.removeCallbacks(mScheduledRefresh);
+            pendingRequests = takePendingRequests();
+        }
+
+        Cannon.addRequestQueue(pendingRequests);
     }
 
     public CannonAuthenticator set(String authToken,
                     AuthTokenType authTokenType,
                     long authTokenExpiry) {
-        mAuthToken = authToken;
-        mAuthTokenType = authTokenType;
-        mAuthTokenExpiry = authTokenExpiry;
+        synchronized (mLock) {
+            mAuthToken = authToken;
+            mAuthTokenType = authTokenType;
+            mAuthTokenExpiry = authTokenExpiry;
+            updateAuthorization();
+
+            // A new token, so whatever went wrong before doesn't matter anymore.
+            mRetryCount = 0;
+            scheduleRefresh(0);
+        }
 
         return this;
     }
 
+    /**
+     * @return Returns the value of the authorization header for the current token,
+     *         or null if there's no token or its type isn't supported.
+     */
+    public String getAuthorization() {
+        return mAuthorization;
+    }
+
     public CannonAuthenticator setRefreshResourcePointCallback(RefreshResourcePointCallback callback) {
-        mRefreshResourcePointCallback = null;
-        mRefreshResourcePointCallback = callback;
+        synchronized (mLock) {
+            mRefreshResourcePointCallback = callback;
+            scheduleRefresh(0);
+        }
 
         return this;
     }
@@ -97,53 +251,235 @@ public class CannonAuthenticator {
     /**
      * Executes the refresh token request if its expired
      * If the refresh token request is processing, the request is added to the queue
+     * <br/>
+     * Only the first request to find the token expiring starts a refresh, every other request
+     * that finds it expiring is parked until the refresh completes. Requests are never parked while
+     * the token is outside of the refresh window, even if a background refresh is running.
      *
-     * @param request
-     * @return
+     * @param request Request about to be fired.
+     * @return Returns true if the request was parked, false if it can be fired right away.
      */
     public boolean didRefreshRequestExecute(Request request) {
-        if (mAuthTokenType == null || mRefreshResourcePointCallback == null) {
-            return false;
-        }
+        RefreshResourcePointCallback callback;
+
+        synchronized (mLock) {
+            if (mAuthTokenType == null || mRefreshResourcePointCallback == null) {
+                return false;
+            }
+
+            // The token is still good, so fire away, even while a background refresh is running.
+            final long now = new Date().getTime();
+            final long difference = mAuthTokenExpiry - now;
+            if (difference > REFRESH_LIMIT) {
+                return false;
+            }
 
-        // Add to Pending Queue if refresh request is processing
-        if (mRefreshRequestIsProcessing.get()) {
+            // Add to Pending Queue if refresh request is processing
+            if (mRefreshRequestIsProcessing) {
+                if (mPendingRequestQueue.size() >= MAX_PENDING_REQUESTS) {
+                    return false;
+                }
+
+                mPendingRequestQueue.add(request);
+                return true;
+            }
+
+            // Mark the refresh as started before running it, so nobody else starts one.
+            mRefreshRequestIsProcessing = true;
+            mLastRefreshStartedAt = now;
             mPendingRequestQueue.add(request);
-            return true;
+            callback = mRefreshResourcePointCallback;
         }
 
-        final long now = new Date().getTime();
-        final long difference = mAuthTokenExpiry - now;
-        // Execute refresh request if below limit
-        if (difference <= REFRESH_LIMIT) {
-            mRefreshResourcePointCallback.execute();
-            mRefreshRequestIsProcessing.getAndSet(true);
-            mPendingRequestQueue.add(request);
-            return true;
-        } else {
-            return false;
+        // Fires the refresh request, which must not happen while holding the lock.
+        executeRefresh(callback);
+        return true;
+    }
+
+    /**
+     * Replays a request that was rejected because its token is no longer valid. If the token has
+     * changed since the request was sent, the request is replayed right away. Otherwise it is parked,
+     * and a refresh is started unless one is running already, so that a burst of rejected requests
+     * causes a single refresh.
+     * <br/>
+     * The request is added to the queue as it is, so it must not have been added before.
+     * {@link com.overturelabs.cannon.toolbox.GenericRequest} replays a copy of itself.
+     *
+     * @param request             Rejected request.
+     * @param failedAuthorization Value of the authorization header the request was sent with.
+     * @return Returns true if the request will be replayed, false if it can't be, e.g. because
+     *         the authenticator is not set up, or too many requests are parked already.
+     */
+    public boolean replayAfterRefresh(Request request, String failedAuthorization) {
+        RefreshResourcePointCallback callback = null;
+        boolean isTokenRefreshed = false;
+
+        synchronized (mLock) {
+            if (mAuthTokenType == null || mRefreshResourcePointCallback == null
+                    || mPendingRequestQueue.size() >= MAX_PENDING_REQUESTS) {
+                return false;
+            }
+
+            if (!mRefreshRequestIsProcessing && mAuthorization != null
+                    && !mAuthorization.equals(failedAuthorization)) {
+                // Somebody refreshed the token while the request was in flight.
+                isTokenRefreshed = true;
+            } else {
+                mPendingRequestQueue.add(request);
+
+                if (!mRefreshRequestIsProcessing) {
+                    mRefreshRequestIsProcessing = true;
+                    mLastRefreshStartedAt = new Date().getTime();
+                    callback = mRefreshResourcePointCallback;
+                }
+            }
+        }
+
+        if (isTokenRefreshed) {
+            Cannon.addRequest(request);
+        } else if (callback != null) {
+            executeRefresh(callback);
         }
+        return true;
     }
 
     /**
      * Process the pending queue by adding it to the processing queue
      */
     public void processPendingQueue() {
-        mRefreshRequestIsProcessing.getAndSet(false);
+        Queue<Request> pendingRequests;
 
-        if (mPendingRequestQueue == null) return;
+        synchronized (mLock) {
+            mRefreshRequestIsProcessing = false;
+            pendingRequests = takePendingRequests();
+        }
 
-        Cannon.addRequestQueue(mPendingRequestQueue);
-        mPendingRequestQueue.clear();
+        Cannon.addRequestQueue(pendingRequests);
     }
 
     /**
-     * Clears the pending queue
+     * Releases the pending queue after a successful refresh, and forgets about earlier failures,
+     * so that the next failure is retried without backing off.
+     */
+    public void onRefreshSucceeded() {
+        synchronized (mLock) {
+            mRetryCount = 0;
+        }
+
+        processPendingQueue();
+    }
+
+    /**
+     * Clears the pending queue. Same as with {@link #invalidate()}, the parked requests
+     * are released rather than dropped, so that none of them hangs forever.
      */
     public void clearPendingQueue() {
-        mRefreshRequestIsProcessing.getAndSet(false);
+        Queue<Request> pendingRequests;
+
+        synchronized (mLock) {
+            mRefreshRequestIsProcessing = false;
+            pendingRequests = takePendingRequests();
+        }
+
+        Cannon.addRequestQueue(pendingRequests);
+    }
+
+    /**
+     * Schedules another refresh after a failed one, backing off exponentially.
+     */
+    public void retryRefresh() {
+        synchronized (mLock) {
+            long delay = Math.min(INITIAL_RETRY_DELAY << Math.min(mRetryCount, 16), MAX_RETRY_DELAY);
+            mRetryCount++;
+            scheduleRefresh(delay);
+        }
+    }
+
+    /**
+     * Builds the authorization header value for the current token.
+     * Currently only supports OAUTH2. Must be called while holding the lock.
+     */
+    private void updateAuthorization() {
+        if (mAuthToken == null || mAuthToken.length() == 0 || mAuthTokenType == null) {
+            mAuthorization = null;
+            return;
+        }
+
+        switch (mAuthTokenType) {
+            case OAUTH2:
+                mAuthorization = "Bearer " + mAuthToken;
+                break;
+            default:
+                mAuthorization = null;
+                break;
+        }
+    }
+
+    /**
+     * Schedules the background refresh ahead of the refresh window, or after the given delay,
+     * whichever comes later. Replaces any refresh scheduled before. Must be called while holding the lock.
+     *
+     * @param minDelay Minimum delay in milliseconds.
+     */
+    private void scheduleRefresh(long minDelay) {
+        mHandler.removeCallbacks(mScheduledRefresh);
+
+        if (mAuthTokenType == null || mRefreshResourcePointCallback == null || mAuthTokenExpiry <= 0) {
+            return;
+        }
+
+        final long now = new Date().getTime();
+        long delay = mAuthTokenExpiry - REFRESH_LIMIT - (long) (mRandom.nextDouble() * REFRESH_JITTER) - now;
+
+        // Don't hammer the server when it hands out tokens that are already in the refresh window.
+        delay = Math.max(delay, mLastRefreshStartedAt + MIN_REFRESH_INTERVAL - now);
+        delay = Math.max(delay, minDelay);
+
+        mHandler.postDelayed(mScheduledRefresh, Math.max(delay, 0));
+    }
+
+    /**
+     * Starts a refresh without parking any request, unless one is running already.
+     */
+    private void refreshInBackground() {
+        RefreshResourcePointCallback callback;
+
+        synchronized (mLock) {
+            if (!isEnabled() || mRefreshRequestIsProcessing
+                    || mAuthTokenType == null || mRefreshResourcePointCallback == null) {
+                return;
+            }
+
+            mRefreshRequestIsProcessing = true;
+            mLastRefreshStartedAt = new Date().getTime();
+            callback = mRefreshResourcePointCallback;
+        }
+
+        executeRefresh(callback);
+    }
+
+    /**
+     * Runs the refresh callback, letting the refresh request it fires know which authenticator it's for.
+     * Must not be called while holding the lock.
+     */
+    private void executeRefresh(RefreshResourcePointCallback callback) {
+        CannonAuthenticator previous = sRefreshingInstance.get();
+        sRefreshingInstance.set(this);
+        try {
+            callback.execute();
+        } finally {
+            sRefreshingInstance.set(previous);
+        }
+    }
+
+    /**
+     * Swaps in an empty pending queue, so that the parked requests can be
+     * released outside of the lock. Must be called while holding the lock.
+     */
+    private Queue<Request> takePendingRequests() {
+        Queue<Request> pendingRequests = mPendingRequestQueue;
+        mPendingRequestQueue = new ArrayDeque<>();
 
-        if (mPendingRequestQueue == null) return;
-        mPendingRequestQueue.clear();
+        return pendingRequests;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,747 @@
+package com.overturelabs.cannon.toolbox;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Base64;
+
+import com.android.volley.DefaultRetryPolicy;
+import com.android.volley.NetworkResponse;
+import com.android.volley.NoConnectionError;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+import com.overturelabs.Cannon;
+import com.overturelabs.cannon.toolbox.parsers.ResponseParser;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.RequestBody;
+
+import java.io.File;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resumable upload of a file in fixed-size chunks, over the <a href="http://tus.io/protocols/resumable-upload.html">tus</a>
+ * protocol. The server keeps track of how much of each upload it has received, so a failed chunk
+ * is resumed from where it stopped, rather than the whole file being sent again.
+ * <br/>
+ * If the server supports the concatenation extension, the file is split into partial uploads that are
+ * sent in parallel, and concatenated once all of them are complete. Otherwise the chunks of a single
+ * upload are sent one after another.
+ * <br/>
+ * To resume an upload after the app was restarted, keep the URLs returned by {@link #getUploadUrls()},
+ * and hand them to {@link #setUploadUrls(String...)} of a new upload of the same file, with the same
+ * chunk size.
+ * <br/>
+ * Progress is reported across all chunks, and a {@link com.overturelabs.cannon.toolbox.BandwidthLimiter}
+ * caps the rate of all chunks together.
+ * <br/>
+ * Uploads are not thread safe. Start and cancel them on the main thread, where listeners are called.
+ */
+public class ChunkedUpload {
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024 * 2; // 2 MiB
+
+    private static final String TUS_VERSION = "1.0.0";
+    private static final String HEADER_TUS_RESUMABLE = "Tus-Resumable";
+    private static final String HEADER_TUS_EXTENSION = "Tus-Extension";
+    private static final String HEADER_UPLOAD_LENGTH = "Upload-Length";
+    private static final String HEADER_UPLOAD_OFFSET = "Upload-Offset";
+    private static final String HEADER_UPLOAD_METADATA = "Upload-Metadata";
+    private static final String HEADER_UPLOAD_CONCAT = "Upload-Concat";
+    private static final String HEADER_LOCATION = "Location";
+    private static final String EXTENSION_CONCATENATION = "concatenation";
+    private static final MediaType OFFSET_OCTET_STREAM = MediaType.parse("application/offset+octet-stream");
+
+    private static final int TIMEOUT_MS = 30000; // Per read or write, not for the whole chunk
+    private static final long INITIAL_RETRY_DELAY = 1000;
+    private static final long MAX_RETRY_DELAY = 1000 * 30;
+
+    private static final ResponseParser<Map<String, String>> HEADERS_PARSER = new ResponseParser<Map<String, String>>() {
+        @Override
+        public Response<Map<String, String>> parseNetworkResponse(NetworkResponse response) {
+            return Response.success(response.headers, null);
+        }
+    };
+
+    private final String mEndpointUrl;
+    private final File mFile;
+    private final long mFileLength;
+    private final Map<String, String> mMetadata = new LinkedHashMap<>();
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private int mChunkSize = DEFAULT_CHUNK_SIZE;
+    private int mParallelism = 1;
+    private int mMaxRetries = 3;
+    private Response.Listener<String> mListener;
+    private Response.ErrorListener mErrorListener;
+    private ProgressListener mProgressListener;
+    private BandwidthLimiter mBandwidthLimiter;
+
+    private String[] mResumeUrls;
+    private Chunk[] mChunks;
+    private boolean mIsParallel;
+    private boolean mIsStarted = false;
+    private boolean mIsConcatenating = false;
+    private boolean mIsFinished = false;
+    private int mConcatenationAttempts = 0;
+
+    /**
+     * Part of the file, uploaded on its own. Without the concatenation extension,
+     * there's a single part spanning the whole file.
+     */
+    private static class Chunk {
+        final long mStart;
+        final long mLength;
+
+        String mUrl;
+        long mOffset = -1; // Unknown until the server tells us
+        int mAttempts = 0;
+        boolean mIsActive = false;
+        long mSentBytes = 0;       // Of the chunk in flight, not yet confirmed by the server
+        long mBytesPerSecond = 0;
+
+        Chunk(long start, long length) {
+            mStart = start;
+            mLength = length;
+        }
+
+        boolean isDone() {
+            return mOffset >= mLength;
+        }
+    }
+
+    /**
+     * Construct a {@link com.overturelabs.cannon.toolbox.ChunkedUpload}.
+     *
+     * @param endpointUrl URL of the tus endpoint uploads are created at.
+     * @param file        File to upload.
+     */
+    public ChunkedUpload(String endpointUrl, File file) {
+        mEndpointUrl = endpointUrl;
+        mFile = file;
+        mFileLength = file.length();
+    }
+
+    /**
+     * Set the size of the chunks. Every request sends at most one chunk, so smaller chunks lose
+     * less progress when a connection drops, at the cost of more requests.
+     *
+     * @param chunkSize Chunk size in bytes.
+     * @return Returns the updated {@link com.overturelabs.cannon.toolbox.ChunkedUpload}.
+     */
+    public ChunkedUpload setChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive.");
+        }
+        mChunkSize = chunkSize;
+
+        return this;
+    }
+
+    /**
+     * Set the number of chunks sent at the same time, if the server supports concatenation.
+     * Over HTTP/2, OkHttp sends them over a single connection.
+     * <br/>
+     * Chunks are sent as transfers, which have two network threads of their own, so that uploads
+     * never hold up API requests. So no more than two chunks are in flight at once, shared
+     * with other uploads and throttled requests, however high the parallelism is set.
+     *
+     * @param parallelism Number of chunks sent at the same time.
+     * @return Returns the updated {@link com.overturelabs.cannon.toolbox.ChunkedUpload}.
+     */
+    public ChunkedUpload setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive.");
+        }
+        mParallelism = parallelism;
+
+        return this;
+    }
+
+    /**
+     * Set the number of times a chunk is retried in a row, before the upload fails.
+     *
+     * @param maxRetries Maximum number of retries.
+     * @return Returns the updated {@link com.overturelabs.cannon.toolbox.ChunkedUpload}.
+     */
+    public ChunkedUpload setMaxRetries(int maxRetries) {
+        mMaxRetries = maxRetries;
+
+        return this;
+    }
+
+    /**
+     * Add metadata for the server, such as the file name.
+     *
+     * @param key   Metadata key, which must not contain spaces or commas.
+     * @param value Metadata value.
+     * @return Returns the updated {@link com.overturelabs.cannon.toolbox.ChunkedUpload}.
+     */
+    public ChunkedUpload addMetadata(String key, String value) {
+        mMetadata.put(key, value);
+
+        return this;
+    }
+
+    /**
+     * Set the listener for the completed upload, which receives the URL of the uploaded file.
+     *
+     * @param listener Success {@link com.android.volley.Response.Listener}.
+     * @return Returns the updated {@link com.overturelabs.cannon.toolbox.ChunkedUpload}.
+     */
+    public ChunkedUpload setListener(Response.Listener<String> listener) {
+        mListener = listener;
+
+        return this;
+    }
+
+    /**
+     * @param errorListener {@link com.android.volley.Response.ErrorListener}.
+     * @return Returns the updated {@link com.overturelabs.cannon.toolbox.ChunkedUpload}.
+     */
+    public ChunkedUpload setErrorListener(Response.ErrorListener errorListener) {
+        mErrorListener = errorListener;
+
+        return this;
+    }
+
+    /**
+     * Set the listener for the progress of the whole upload. The rate is the combined rate of the
+     * chunks in flight.
+     *
+     * @param listener {@link com.overturelabs.cannon.toolbox.ProgressListener}.
+     * @return Returns the updated {@link com.overturelabs.cannon.toolbox.ChunkedUpload}.
+     */
+    public ChunkedUpload setProgressListener(ProgressListener listener) {
+        mProgressListener = listener;
+
+        return this;
+    }
+
+    /**
+     * Set the limiter that caps the rate of the upload.
+     *
+     * @param limiter {@link com.overturelabs.cannon.toolbox.BandwidthLimiter}, or null for no cap.
+     * @return Returns the updated {@link com.overturelabs.cannon.toolbox.ChunkedUpload}.
+     */
+    public ChunkedUpload setBandwidthLimiter(BandwidthLimiter limiter) {
+        mBandwidthLimiter = limiter;
+
+        return this;
+    }
+
+    /**
+     * Resume an earlier upload of the same file.
+     *
+     * @param uploadUrls URLs returned by {@link #getUploadUrls()} of the earlier upload.
+     * @return Returns the updated {@link com.overturelabs.cannon.toolbox.ChunkedUpload}.
+     */
+    public ChunkedUpload setUploadUrls(String... uploadUrls) {
+        mResumeUrls = uploadUrls.clone();
+
+        return this;
+    }
+
+    /**
+     * @return Returns the URLs of the uploads created so far, one per chunk, with null for chunks
+     *         that weren't started yet, or null if the upload hasn't started.
+     */
+    public String[] getUploadUrls() {
+        if (mChunks == null) {
+            return mResumeUrls != null ? mResumeUrls.clone() : null;
+        }
+
+        String[] uploadUrls = new String[mChunks.length];
+        for (int i = 0; i < mChunks.length; i++) {
+            uploadUrls[i] = mChunks[i].mUrl;
+        }
+
+        return uploadUrls;
+    }
+
+    /**
+     * @return Returns the number of bytes the server has confirmed so far.
+     */
+    public long getUploadedLength() {
+        if (mChunks == null) {
+            return 0;
+        }
+
+        long uploadedLength = 0;
+        for (Chunk chunk : mChunks) {
+            uploadedLength += Math.max(chunk.mOffset, 0);
+        }
+
+        return uploadedLength;
+    }
+
+    /**
+     * Starts the upload. An upload can only be started once.
+     */
+    public void start() {
+        if (mIsStarted) {
+            throw new IllegalStateException("Upload was started already.");
+        }
+        mIsStarted = true;
+
+        final int chunkCount = (int) Math.max(1, (mFileLength + mChunkSize - 1) / mChunkSize);
+
+        if (mResumeUrls != null) {
+            if (mResumeUrls.length != 1 && mResumeUrls.length != chunkCount) {
+                throw new IllegalStateException("Upload URLs don't match the chunks of the file.");
+            }
+
+            planChunks(mResumeUrls.length > 1);
+            for (int i = 0; i < mChunks.length; i++) {
+                mChunks[i].mUrl = mResumeUrls[i];
+            }
+            proceed();
+        } else if (mParallelism > 1 && chunkCount > 1) {
+            discoverExtensions();
+        } else {
+            planChunks(false);
+            proceed();
+        }
+    }
+
+    /**
+     * Cancels the upload. The server keeps what it has received, so the upload can be resumed later.
+     */
+    public void cancel() {
+        mIsFinished = true;
+        mHandler.removeCallbacksAndMessages(null);
+
+        try {
+            Cannon.cancelAll(this);
+        } catch (Cannon.NotLoadedException e) {
+            // Nothing was fired, so there's nothing to cancel.
+        }
+    }
+
+    private void discoverExtensions() {
+        send(Request.Method.OPTIONS, mEndpointUrl, tusHeaders(), null, null, new Response.Listener<Map<String, String>>() {
+            @Override
+            public void onResponse(Map<String, String> headers) {
+                String extensions = headers.get(HEADER_TUS_EXTENSION);
+                planChunks(extensions != null && extensions.contains(EXTENSION_CONCATENATION));
+                proceed();
+            }
+        }, new Response.ErrorListener() {
+            @Override
+            public void onErrorResponse(VolleyError error) {
+                // Not every server answers OPTIONS, the core protocol works regardless.
+                planChunks(false);
+                proceed();
+            }
+        });
+    }
+
+    private void planChunks(boolean isParallel) {
+        mIsParallel = isParallel;
+
+        if (isParallel) {
+            mChunks = new Chunk[(int) ((mFileLength + mChunkSize - 1) / mChunkSize)];
+            for (int i = 0; i < mChunks.length; i++) {
+                long start = (long) i * mChunkSize;
+                mChunks[i] = new Chunk(start, Math.min(mChunkSize, mFileLength - start));
+            }
+        } else {
+            mChunks = new Chunk[] { new Chunk(0, mFileLength) };
+        }
+    }
+
+    /**
+     * Starts chunks until as many are active as allowed, or completes the upload once all chunks are done.
+     */
+    private void proceed() {
+        final int maxActive = mIsParallel ? mParallelism : 1;
+
+        int activeCount = 0;
+        boolean isDone = true;
+        for (Chunk chunk : mChunks) {
+            if (chunk.mIsActive) {
+                activeCount++;
+            }
+            if (!chunk.isDone()) {
+                isDone = false;
+            }
+        }
+
+        if (isDone) {
+            complete();
+            return;
+        }
+
+        for (int i = 0; i < mChunks.length && activeCount < maxActive && !mIsFinished; i++) {
+            Chunk chunk = mChunks[i];
+
+            if (!chunk.mIsActive && !chunk.isDone()) {
+                chunk.mIsActive = true;
+                activeCount++;
+                advance(chunk);
+            }
+        }
+    }
+
+    private void advance(Chunk chunk) {
+        if (mIsFinished) {
+            return;
+        }
+
+        if (chunk.mUrl == null) {
+            create(chunk);
+        } else if (chunk.mOffset < 0) {
+            head(chunk);
+        } else {
+            patch(chunk);
+        }
+    }
+
+    private void create(final Chunk chunk) {
+        Map<String, String> headers = tusHeaders();
+        headers.put(HEADER_UPLOAD_LENGTH, Long.toString(chunk.mLength));
+        if (mIsParallel) {
+            headers.put(HEADER_UPLOAD_CONCAT, "partial");
+        } else {
+            putMetadata(headers);
+        }
+
+        send(Request.Method.POST, mEndpointUrl, headers, null, null, new Response.Listener<Map<String, String>>() {
+            @Override
+            public void onResponse(Map<String, String> headers) {
+                String url = resolve(headers.get(HEADER_LOCATION));
+                if (url == null) {
+                    fail(new VolleyError("Upload was created without a location."));
+                    return;
+                }
+
+                chunk.mUrl = url;
+                chunk.mOffset = 0;
+                patch(chunk);
+            }
+        }, new Response.ErrorListener() {
+            @Override
+            public void onErrorResponse(VolleyError error) {
+                retry(chunk, error);
+            }
+        });
+    }
+
+    private void head(final Chunk chunk) {
+        send(Request.Method.HEAD, chunk.mUrl, tusHeaders(), null, null, new Response.Listener<Map<String, String>>() {
+            @Override
+            public void onResponse(Map<String, String> headers) {
+                long offset = parseOffset(headers);
+                if (offset < 0) {
+                    fail(new VolleyError("Upload offset is missing."));
+                    return;
+                }
+
+                chunk.mOffset = offset;
+                patch(chunk);
+            }
+        }, new Response.ErrorListener() {
+            @Override
+            public void onErrorResponse(VolleyError error) {
+                retry(chunk, error);
+            }
+        });
+    }
+
+    private void patch(final Chunk chunk) {
+        if (chunk.isDone()) {
+            chunk.mIsActive = false;
+            proceed();
+            return;
+        }
+
+        final long length = Math.min(mChunkSize, chunk.mLength - chunk.mOffset);
+        final RequestBody body = new FileRegionRequestBody(OFFSET_OCTET_STREAM, mFile, chunk.mStart + chunk.mOffset, length);
+
+        Map<String, String> headers = tusHeaders();
+        headers.put(HEADER_UPLOAD_OFFSET, Long.toString(chunk.mOffset));
+
+        ProgressListener progressListener = null;
+        if (mProgressListener != null) {
+            progressListener = new ProgressListener() {
+                @Override
+                public void onProgress(long transferredBytes, long totalBytes, long bytesPerSecond) {
+                    if (chunk.mIsActive && !mIsFinished) {
+                        chunk.mSentBytes = transferredBytes;
+                        chunk.mBytesPerSecond = bytesPerSecond;
+                        reportProgress();
+                    }
+                }
+            };
+        }
+
+        send(Request.Method.PATCH, chunk.mUrl, headers, body, progressListener, new Response.Listener<Map<String, String>>() {
+            @Override
+            public void onResponse(Map<String, String> headers) {
+                long offset = parseOffset(headers);
+
+                chunk.mOffset = offset >= 0 ? offset : chunk.mOffset + length;
+                chunk.mAttempts = 0;
+                chunk.mSentBytes = 0;
+                patch(chunk);
+            }
+        }, new Response.ErrorListener() {
+            @Override
+            public void onErrorResponse(VolleyError error) {
+                chunk.mSentBytes = 0;
+                chunk.mBytesPerSecond = 0;
+                retry(chunk, error);
+            }
+        });
+    }
+
+    /**
+     * Retries a chunk after a backoff. The offset is asked for again, as the server may have
+     * received part of the failed request. Uploads that expired are created anew.
+     */
+    private void retry(final Chunk chunk, VolleyError error) {
+        if (mIsFinished) {
+            return;
+        }
+
+        if (++chunk.mAttempts > mMaxRetries) {
+            fail(error);
+            return;
+        }
+
+        final int statusCode = error.networkResponse != null ? error.networkResponse.statusCode : 0;
+        if (statusCode == HttpURLConnection.HTTP_NOT_FOUND || statusCode == HttpURLConnection.HTTP_GONE) {
+            chunk.mUrl = null;
+        }
+        chunk.mOffset = -1;
+
+        final long delay = Math.min(INITIAL_RETRY_DELAY << (chunk.mAttempts - 1), MAX_RETRY_DELAY);
+        mHandler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                advance(chunk);
+            }
+        }, delay);
+    }
+
+    private void complete() {
+        if (mIsFinished || mIsConcatenating) {
+            return;
+        }
+
+        if (mIsParallel) {
+            mIsConcatenating = true;
+            concatenate();
+        } else {
+            succeed(mChunks[0].mUrl);
+        }
+    }
+
+    private void concatenate() {
+        if (mIsFinished) {
+            return;
+        }
+
+        StringBuilder concat = new StringBuilder("final;");
+        for (int i = 0; i < mChunks.length; i++) {
+            if (i > 0) {
+                concat.append(' ');
+            }
+            concat.append(mChunks[i].mUrl);
+        }
+
+        Map<String, String> headers = tusHeaders();
+        headers.put(HEADER_UPLOAD_CONCAT, concat.toString());
+        putMetadata(headers);
+
+        send(Request.Method.POST, mEndpointUrl, headers, null, null, new Response.Listener<Map<String, String>>() {
+            @Override
+            public void onResponse(Map<String, String> headers) {
+                String url = resolve(headers.get(HEADER_LOCATION));
+                if (url == null) {
+                    fail(new VolleyError("Upload was concatenated without a location."));
+                    return;
+                }
+
+                succeed(url);
+            }
+        }, new Response.ErrorListener() {
+            @Override
+            public void onErrorResponse(VolleyError error) {
+                if (++mConcatenationAttempts > mMaxRetries) {
+                    fail(error);
+                    return;
+                }
+
+                mHandler.postDelayed(new Runnable() {
+                    @Override
+                    public void run() {
+                        concatenate();
+                    }
+                }, Math.min(INITIAL_RETRY_DELAY << (mConcatenationAttempts - 1), MAX_RETRY_DELAY));
+            }
+        });
+    }
+
+    private void reportProgress() {
+        long transferredBytes = 0;
+        long bytesPerSecond = 0;
+        for (Chunk chunk : mChunks) {
+            transferredBytes += Math.max(chunk.mOffset, 0) + chunk.mSentBytes;
+            if (chunk.mIsActive) {
+                bytesPerSecond += chunk.mBytesPerSecond;
+            }
+        }
+
+        mProgressListener.onProgress(Math.min(transferredBytes, mFileLength), mFileLength, bytesPerSecond);
+    }
+
+    private void succeed(String url) {
+        mIsFinished = true;
+
+        if (mListener != null) {
+            mListener.onResponse(url);
+        }
+    }
+
+    private void fail(VolleyError error) {
+        if (mIsFinished) {
+            return;
+        }
+        cancel();
+
+        if (mErrorListener != null) {
+            mErrorListener.onErrorResponse(error);
+        }
+    }
+
+    private void send(int method, String url, Map<String, String> headers, RequestBody body,
+                      ProgressListener progressListener,
+                      final Response.Listener<Map<String, String>> listener,
+                      final Response.ErrorListener errorListener) {
+        if (mIsFinished) {
+            return;
+        }
+
+        // Listeners are dropped once the upload is finished, e.g. when a response raced a cancel.
+        UploadRequest request = new UploadRequest(method, url, headers, body, new Response.Listener<Map<String, String>>() {
+            @Override
+            public void onResponse(Map<String, String> response) {
+                if (!mIsFinished) {
+                    listener.onResponse(response);
+                }
+            }
+        }, new Response.ErrorListener() {
+            @Override
+            public void onErrorResponse(VolleyError error) {
+                if (!mIsFinished) {
+                    errorListener.onErrorResponse(error);
+                }
+            }
+        });
+        request.setTag(this);
+        request.setUploadProgressListener(progressListener);
+        request.setBandwidthLimiter(mBandwidthLimiter);
+
+        boolean isFired;
+        try {
+            isFired = Cannon.fire(request);
+        } catch (Cannon.NotLoadedException e) {
+            isFired = false;
+        }
+
+        if (!isFired) {
+            errorListener.onErrorResponse(new NoConnectionError());
+        }
+    }
+
+    private Map<String, String> tusHeaders() {
+        Map<String, String> headers = new HashMap<>();
+        headers.put(HEADER_TUS_RESUMABLE, TUS_VERSION);
+
+        return headers;
+    }
+
+    private void putMetadata(Map<String, String> headers) {
+        if (mMetadata.isEmpty()) {
+            return;
+        }
+
+        StringBuilder metadata = new StringBuilder();
+        for (Map.Entry<String, String> entry : mMetadata.entrySet()) {
+            if (metadata.length() > 0) {
+                metadata.append(',');
+            }
+
+            try {
+                metadata.append(entry.getKey()).append(' ').append(Base64.encodeToString(
+                        entry.getValue().getBytes("UTF-8"), Base64.NO_WRAP));
+            } catch (UnsupportedEncodingException e) {
+                // UTF-8 is always supported.
+                throw new IllegalStateException(e);
+            }
+        }
+
+        headers.put(HEADER_UPLOAD_METADATA, metadata.toString());
+    }
+
+    private String resolve(String location) {
+        if (location == null) {
+            return null;
+        }
+
+        try {
+            return new URL(new URL(mEndpointUrl), location).toString();
+        } catch (MalformedURLException e) {
+            return location;
+        }
+    }
+
+    private static long parseOffset(Map<String, String> headers) {
+        String offset = headers != null ? headers.get(HEADER_UPLOAD_OFFSET) : null;
+        if (offset == null) {
+            return -1;
+        }
+
+        try {
+            return Long.parseLong(offset.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Request of the tus protocol, which answers with headers only. Chunks are retried by the upload,
+     * after asking for the offset, so Volley must not send them again on its own.
+     */
+    private static class UploadRequest extends GenericRequest<Map<String, String>> implements StreamingRequest {
+        private final RequestBody mBody;
+
+        UploadRequest(int method, String url, Map<String, String> headers, RequestBody body,
+                      Response.Listener<Map<String, String>> listener,
+                      Response.ErrorListener errorListener) {
+            super(method, url, HEADERS_PARSER, headers, null, listener, errorListener);
+
+            mBody = body;
+            setShouldCache(false);
+            setRetryPolicy(new DefaultRetryPolicy(TIMEOUT_MS, 0, DefaultRetryPolicy.DEFAULT_BACKOFF_MULT));
+        }
+
+        @Override
+        public RequestBody getRequestBody() {
+            return mBody;
+        }
+
+        /**
+         * Chunks are transfers, whether throttled or not. The other requests of the protocol are quick.
+         */
+        @Override
+        public boolean isTransfer() {
+            return getMethod() == Method.PATCH || super.isTransfer();
+        }
+    }
+}
@@ -37,6 +37,10 @@ public class ExampleResourcePoint extends ResourcePoint<ModelObject> {
      * A simple copy and paste would suffice, but make sure you change
      * {@code ResourcePoint.class} to your new class.
      *
+     * Simple requests are built with a {@link RequestBuilder}, e.g.
+     * {@code get().addPathParam(key, value).setListener(listener).fire()},
+     * so one helper per HTTP method is all it takes.
+     *
      *========================================*/
 
     /*
@@ -45,45 +49,18 @@ public class ExampleResourcePoint extends ResourcePoint<ModelObject> {
      * ========================================
      */
 
-    public static boolean get(Response.Listener<ModelObject> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.GET, null, null, null, null, successListener, errorListener);
-    }
-
-    public static boolean get(final Map<String, String> resourcePathParams,
-                              Response.Listener<ModelObject> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.GET, resourcePathParams, null, null, null, successListener, errorListener);
+    public static RequestBuilder<ModelObject> get() {
+        return Cannon.request(ExampleResourcePoint.class).setMethod(Request.Method.GET);
     }
 
-    public static boolean get(String oAuth2Token,
-                              Response.Listener<ModelObject> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.GET, null, null, null, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean get(final Map<String, String> resourcePathParams,
-                              String oAuth2Token,
-                              Response.Listener<ModelObject> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.GET, resourcePathParams,  null, null, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean get(final Map<String, String> resourcePathParams,
-                              final Map<String, String> requestParams,
-                              String oAuth2Token,
-                              Response.Listener<ModelObject> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.GET, resourcePathParams,  null, requestParams, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean get(final Map<String, String> resourcePathParams,
-                              final Map<String, String> requestHeaders,
-                              final Map<String, String> requestParams,
-                              String oAuth2Token,
-                              Response.Listener<ModelObject> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.GET, resourcePathParams,  requestHeaders, requestParams, oAuth2Token, successListener, errorListener);
+    public static boolean getById(String objectId,
+                                  Response.Listener<ModelObject> successListener,
+                                  Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
+        return get()
+                .addPathParam("objectId", objectId)
+                .setListener(successListener)
+                .setErrorListener(errorListener)
+                .fire();
     }
 
     /*
@@ -92,37 +69,8 @@ public class ExampleResourcePoint extends ResourcePoint<ModelObject> {
      * ========================================
      */
 
-    public static boolean post(Response.Listener<ModelObject> successListener,
-                               Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.POST, null, null, null, null, successListener, errorListener);
-    }
-
-    public static boolean post(final Map<String, String> resourcePathParams,
-                               Response.Listener<ModelObject> successListener,
-                               Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.POST, resourcePathParams, null, null, null, successListener, errorListener);
-    }
-
-    public static boolean post(String oAuth2Token,
-                               Response.Listener<ModelObject> successListener,
-                               Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.POST, null, null, null, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean post(final Map<String, String> resourcePathParams,
-                               String oAuth2Token,
-                               Response.Listener<ModelObject> successListener,
-                               Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.POST, resourcePathParams, null, null, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean post(final Map<String, String> resourcePathParams,
-                               final Map<String, String> requestHeaders,
-                               final Map<String, String> requestParams,
-                               String oAuth2Token,
-                               Response.Listener<ModelObject> successListener,
-                               Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.POST, resourcePathParams, requestHeaders, requestParams, oAuth2Token, successListener, errorListener);
+    public static RequestBuilder<ModelObject> post() {
+        return Cannon.request(ExampleResourcePoint.class).setMethod(Request.Method.POST);
     }
 
     /*
@@ -175,37 +123,8 @@ public class ExampleResourcePoint extends ResourcePoint<ModelObject> {
      * ========================================
      */
 
-    public static boolean put(Response.Listener<ModelObject> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.PUT, null, null, null, null, successListener, errorListener);
-    }
-
-    public static boolean put(final Map<String, String> resourcePathParams,
-                              Response.Listener<ModelObject> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.PUT, resourcePathParams, null, null, null, successListener, errorListener);
-    }
-
-    public static boolean put(String oAuth2Token,
-                              Response.Listener<ModelObject> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.PUT, null, null, null, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean put(final Map<String, String> resourcePathParams,
-                              String oAuth2Token,
-                              Response.Listener<ModelObject> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.PUT, resourcePathParams, null, null, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean put(final Map<String, String> resourcePathParams,
-                              final Map<String, String> requestHeaders,
-                              final Map<String, String> requestParams,
-                              String oAuth2Token,
-                              Response.Listener<ModelObject> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.PUT, resourcePathParams, requestHeaders, requestParams, oAuth2Token, successListener, errorListener);
+    public static RequestBuilder<ModelObject> put() {
+        return Cannon.request(ExampleResourcePoint.class).setMethod(Request.Method.PUT);
     }
 
     /*
@@ -258,37 +177,8 @@ public class ExampleResourcePoint extends ResourcePoint<ModelObject> {
      * ========================================
      */
 
-    public static boolean patch(Response.Listener<ModelObject> successListener,
-                                Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.PATCH, null, null, null, null, successListener, errorListener);
-    }
-
-    public static boolean patch(final Map<String, String> resourcePathParams,
-                                Response.Listener<ModelObject> successListener,
-                                Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.PATCH, resourcePathParams, null, null, null, successListener, errorListener);
-    }
-
-    public static boolean patch(String oAuth2Token,
-                                Response.Listener<ModelObject> successListener,
-                                Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.PATCH, null, null, null, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean patch(final Map<String, String> resourcePathParams,
-                                String oAuth2Token,
-                                Response.Listener<ModelObject> successListener,
-                                Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.PATCH, resourcePathParams, null, null, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean patch(final Map<String, String> resourcePathParams,
-                                final Map<String, String> requestHeaders,
-                                final Map<String, String> requestParams,
-                                String oAuth2Token,
-                                Response.Listener<ModelObject> successListener,
-                                Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.PATCH, resourcePathParams, requestHeaders, requestParams, oAuth2Token, successListener, errorListener);
+    public static RequestBuilder<ModelObject> patch() {
+        return Cannon.request(ExampleResourcePoint.class).setMethod(Request.Method.PATCH);
     }
 
     /*
@@ -341,36 +231,7 @@ public class ExampleResourcePoint extends ResourcePoint<ModelObject> {
      * ========================================
      */
 
-    public static boolean delete(Response.Listener<ModelObject> successListener,
-                                 Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.DELETE, null, null, null, null, successListener, errorListener);
-    }
-
-    public static boolean delete(final Map<String, String> resourcePathParams,
-                                 Response.Listener<ModelObject> successListener,
-                                 Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.DELETE, resourcePathParams, null, null, null, successListener, errorListener);
-    }
-
-    public static boolean delete(String oAuth2Token,
-                                 Response.Listener<ModelObject> successListener,
-                                 Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.DELETE, null, null, null, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean delete(final Map<String, String> resourcePathParams,
-                                 String oAuth2Token,
-                                 Response.Listener<ModelObject> successListener,
-                                 Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.DELETE, resourcePathParams, null, null, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean delete(final Map<String, String> resourcePathParams,
-                                 final Map<String, String> requestHeaders,
-                                 final Map<String, String> requestParams,
-                                 String oAuth2Token,
-                                 Response.Listener<ModelObject> successListener,
-                                 Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(ExampleResourcePoint.class, Request.Method.DELETE, resourcePathParams, requestHeaders, requestParams, oAuth2Token, successListener, errorListener);
+    public static RequestBuilder<ModelObject> delete() {
+        return Cannon.request(ExampleResourcePoint.class).setMethod(Request.Method.DELETE);
     }
 }
@@ -0,0 +1,70 @@
+package com.overturelabs.cannon.toolbox;
+
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.RequestBody;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * {@link com.squareup.okhttp.RequestBody} that streams a region of a file from disk.
+ * The file is opened anew on every write, so the body can be sent again when a request is retried.
+ */
+public class FileRegionRequestBody extends RequestBody {
+    private final MediaType mContentType;
+    private final File mFile;
+    private final long mOffset;
+    private final long mLength;
+
+    /**
+     * Construct a {@link com.overturelabs.cannon.toolbox.FileRegionRequestBody}.
+     *
+     * @param contentType Media type of the body.
+     * @param file        File to read from.
+     * @param offset      Position in the file to start reading at.
+     * @param length      Number of bytes to send.
+     */
+    public FileRegionRequestBody(MediaType contentType, File file, long offset, long length) {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Offset and length must not be negative.");
+        }
+
+        mContentType = contentType;
+        mFile = file;
+        mOffset = offset;
+        mLength = length;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return mContentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return mLength;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        FileInputStream input = new FileInputStream(mFile);
+        Source source = null;
+
+        try {
+            input.getChannel().position(mOffset);
+            source = Okio.source(input);
+            sink.write(source, mLength);
+        } finally {
+            if (source != null) {
+                source.close();
+            } else {
+                input.close();
+            }
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package com.overturelabs.cannon.toolbox;
 
+import com.android.volley.NetworkDispatcher;
 import com.android.volley.NetworkResponse;
 import com.android.volley.Request;
 import com.android.volley.Response;
+import com.android.volley.VolleyError;
 import com.overturelabs.Cannon;
-import com.overturelabs.cannon.toolbox.CannonAuthenticator;
+import com.overturelabs.cannon.toolbox.parsers.NegotiableResponseParser;
+import com.overturelabs.cannon.toolbox.parsers.RequestAwareResponseParser;
 import com.overturelabs.cannon.toolbox.parsers.ResponseParser;
+import com.overturelabs.cannon.toolbox.parsers.StreamingJsonArrayResponseParser;
 
+import java.net.HttpURLConnection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -17,11 +22,31 @@ import java.util.Map;
  * @author      Steve Tan
  */
 public class GenericRequest<T> extends Request<T> {
+    private static final int MAX_AUTH_REPLAYS = 1;
+
     private Map<String, String> mHeaders;
     private Map<String, String> mParams;
     // private String mOAuth2Token = null;
     private ResponseParser<T> mResponseParser;
     private Response.Listener<T> mListener;
+    private String mCacheKey;
+
+    // Headers merged with the base headers they were merged with, for reuse across calls.
+    private volatile HeaderSet mMergedBaseHeaders;
+    private volatile Map<String, String> mMergedHeaders;
+
+    private volatile CannonAuthenticator mAuthenticator;
+    private Boolean mIsReplayableOnAuthFailure; // Unless set, only idempotent methods are replayed
+    private ProgressListener mUploadProgressListener;
+    private ProgressListener mDownloadProgressListener;
+    private StreamingJsonArrayResponseParser.BatchListener<?> mBatchListener;
+    private BandwidthLimiter mBandwidthLimiter;
+    private int mAuthReplayCount = 0;
+    private volatile GenericRequest<T> mReplay; // Canceled along with this request
+
+    private boolean mIsParseDeferred = false;
+    private NetworkResponse mDeferredResponse;
+    private boolean mIsDeferredResponseFromNetwork;
 
     /**
      * Construct a {@link com.overturelabs.cannon.toolbox.GenericRequest}.
@@ -179,7 +204,194 @@ public class GenericRequest<T> extends Request<T> {
         this.mResponseParser = responseParser;
         this.mListener = successListener;
     }    
+
+    /**
+     * Construct a copy of a request, for replaying it. Everything but the state of the
+     * attempts Volley made is copied, so the copy starts out with a fresh retry policy.
+     *
+     * @param source Request to copy.
+     */
+    protected GenericRequest(GenericRequest<T> source) {
+        super(source.getMethod(), source.getUrl(), source.getErrorListener());
+
+        mHeaders = source.mHeaders;
+        mParams = source.mParams;
+        mResponseParser = source.mResponseParser;
+        mListener = source.mListener;
+        mCacheKey = source.mCacheKey;
+        mAuthenticator = source.mAuthenticator;
+        mIsReplayableOnAuthFailure = source.mIsReplayableOnAuthFailure;
+        mUploadProgressListener = source.mUploadProgressListener;
+        mDownloadProgressListener = source.mDownloadProgressListener;
+        mBatchListener = source.mBatchListener;
+        mBandwidthLimiter = source.mBandwidthLimiter;
+        mAuthReplayCount = source.mAuthReplayCount;
+        mIsParseDeferred = source.mIsParseDeferred;
+
+        setTag(source.getTag());
+        setShouldCache(source.shouldCache());
+    }
     
+    /**
+     * Set the key to cache the response under, instead of the URL.
+     * Refer to {@link com.overturelabs.cannon.toolbox.ResourcePoint#getCacheKey(java.util.Map, java.util.Map, String)}.
+     *
+     * @param cacheKey Cache key.
+     * @return Returns the updated {@link com.overturelabs.cannon.toolbox.GenericRequest}.
+     */
+    public GenericRequest<T> setCacheKey(String cacheKey) {
+        mCacheKey = cacheKey;
+
+        return this;
+    }
+
+    @Override
+    public String getCacheKey() {
+        return mCacheKey != null ? mCacheKey : super.getCacheKey();
+    }
+
+    /**
+     * Set the authenticator for this request. Unless set, Cannon resolves it when the request is fired.
+     * Refer to {@link com.overturelabs.Cannon#registerAuthenticator(String, CannonAuthenticator)}.
+     *
+     * @param authenticator {@link com.overturelabs.cannon.toolbox.CannonAuthenticator}.
+     * @return Returns the updated {@link com.overturelabs.cannon.toolbox.GenericRequest}.
+     */
+    public GenericRequest<T> setAuthenticator(CannonAuthenticator authenticator) {
+        mAuthenticator = authenticator;
+
+        return this;
+    }
+
+    /**
+     * @return Returns the authenticator for this request, or null if it hasn't been resolved yet.
+     */
+    public CannonAuthenticator getAuthenticator() {
+        return mAuthenticator;
+    }
+
+    /**
+     * @return Returns the authenticator for this request, falling back to the default one.
+     */
+    protected CannonAuthenticator resolveAuthenticator() {
+        CannonAuthenticator authenticator = mAuthenticator;
+
+        return authenticator != null ? authenticator : CannonAuthenticator.getInstance();
+    }
+
+    /**
+     * Set the listener for the progress of the request body.
+     *
+     * @param listener {@link com.overturelabs.cannon.toolbox.ProgressListener}.
+     * @return Returns the updated {@link com.overturelabs.cannon.toolbox.GenericRequest}.
+     */
+    public GenericRequest<T> setUploadProgressListener(ProgressListener listener) {
+        mUploadProgressListener = listener;
+
+        return this;
+    }
+
+    public ProgressListener getUploadProgressListener() {
+        return mUploadProgressListener;
+    }
+
+    /**
+     * Set the listener for the progress of the response body.
+     *
+     * @param listener {@link com.overturelabs.cannon.toolbox.ProgressListener}.
+     * @return Returns the updated {@link com.overturelabs.cannon.toolbox.GenericRequest}.
+     */
+    public GenericRequest<T> setDownloadProgressListener(ProgressListener listener) {
+        mDownloadProgressListener = listener;
+
+        return this;
+    }
+
+    public ProgressListener getDownloadProgressListener() {
+        return mDownloadProgressListener;
+    }
+
+    /**
+     * Set the listener for the batches of a
+     * {@link com.overturelabs.cannon.toolbox.parsers.StreamingJsonArrayResponseParser}.
+     * Its element type must match the one of the parser.
+     *
+     * @param listener {@link com.overturelabs.cannon.toolbox.parsers.StreamingJsonArrayResponseParser.BatchListener}.
+     * @return Returns the updated {@link com.overturelabs.cannon.toolbox.GenericRequest}.
+     */
+    public GenericRequest<T> setBatchListener(StreamingJsonArrayResponseParser.BatchListener<?> listener) {
+        mBatchListener = listener;
+
+        return this;
+    }
+
+    public StreamingJsonArrayResponseParser.BatchListener<?> getBatchListener() {
+        return mBatchListener;
+    }
+
+    /**
+     * Set the limiter that caps the rate of the request and response bodies. Requests sharing
+     * a limiter are capped together. Throttled requests are sent as transfers, refer to
+     * {@link #isTransfer()}, so set the limiter before firing the request.
+     *
+     * @param limiter {@link com.overturelabs.cannon.toolbox.BandwidthLimiter}, or null for no cap.
+     * @return Returns the updated {@link com.overturelabs.cannon.toolbox.GenericRequest}.
+     */
+    public GenericRequest<T> setBandwidthLimiter(BandwidthLimiter limiter) {
+        mBandwidthLimiter = limiter;
+
+        return this;
+    }
+
+    public BandwidthLimiter getBandwidthLimiter() {
+        return mBandwidthLimiter;
+    }
+
+    /**
+     * Returns whether the request is a long running transfer. Transfers are sent through a queue
+     * with two network threads of their own, so that they never hold up other requests,
+     * and at most two of them run at once.
+     *
+     * @return Returns true if the request has a bandwidth limiter.
+     */
+    public boolean isTransfer() {
+        return mBandwidthLimiter != null;
+    }
+
+    /**
+     * Set whether the request may be replayed after a 401, once the token has been refreshed.
+     * By default only requests with idempotent methods are replayed.
+     *
+     * @param isReplayableOnAuthFailure Whether the request may be replayed.
+     * @return Returns the updated {@link com.overturelabs.cannon.toolbox.GenericRequest}.
+     */
+    public GenericRequest<T> setReplayableOnAuthFailure(boolean isReplayableOnAuthFailure) {
+        mIsReplayableOnAuthFailure = isReplayableOnAuthFailure;
+
+        return this;
+    }
+
+    /**
+     * @return Returns true if the request may be replayed after a 401.
+     */
+    protected boolean isReplayableOnAuthFailure() {
+        if (mIsReplayableOnAuthFailure != null) {
+            return mIsReplayableOnAuthFailure;
+        }
+
+        switch (getMethod()) {
+            case Method.GET:
+            case Method.HEAD:
+            case Method.PUT:
+            case Method.DELETE:
+            case Method.OPTIONS:
+            case Method.TRACE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     @Override
     protected Map<String, String> getParams() {
         return mParams;
@@ -187,6 +399,45 @@ public class GenericRequest<T> extends Request<T> {
 
     @Override
     protected Response<T> parseNetworkResponse(NetworkResponse response) {
+        if (mIsParseDeferred) {
+            // Hand the raw response over to the parse threads of ParseDelivery. Without a cache
+            // entry, Volley won't cache the response before we know whether it can be parsed.
+            mDeferredResponse = response;
+            mIsDeferredResponseFromNetwork = Thread.currentThread() instanceof NetworkDispatcher;
+            return Response.success(null, null);
+        }
+
+        return parse(response);
+    }
+
+    void setParseDeferred(boolean isParseDeferred) {
+        mIsParseDeferred = isParseDeferred;
+    }
+
+    /**
+     * Returns the raw response handed over by the last call to {@link #parseNetworkResponse},
+     * and forgets about it. Must be called on the dispatcher thread that parsed the response.
+     */
+    NetworkResponse takeDeferredResponse() {
+        NetworkResponse response = mDeferredResponse;
+        mDeferredResponse = null;
+
+        return response;
+    }
+
+    boolean isDeferredResponseFromNetwork() {
+        return mIsDeferredResponseFromNetwork;
+    }
+
+    Response<T> parseDeferredResponse(NetworkResponse response) {
+        return parse(response);
+    }
+
+    private Response<T> parse(NetworkResponse response) {
+        if (mResponseParser instanceof RequestAwareResponseParser) {
+            return ((RequestAwareResponseParser<T>) mResponseParser).parseNetworkResponse(this, response);
+        }
+
         return mResponseParser.parseNetworkResponse(response);
     }
 
@@ -195,35 +446,100 @@ public class GenericRequest<T> extends Request<T> {
         mListener.onResponse(response);
     }
 
+    /**
+     * Replays the request instead of failing it, if it was rejected with a 401 and the
+     * authenticator can get a fresh token. Each request is replayed a limited number of times.
+     * <br/>
+     * Volley is done with this request once the error is delivered, so a copy from
+     * {@link #copyForReplay()} is replayed instead. Canceling this request cancels the copy too.
+     */
+    @Override
+    public void deliverError(VolleyError error) {
+        if (error.networkResponse != null
+                && error.networkResponse.statusCode == HttpURLConnection.HTTP_UNAUTHORIZED
+                && mAuthReplayCount < MAX_AUTH_REPLAYS
+                && isReplayableOnAuthFailure()) {
+            final CannonAuthenticator authenticator = resolveAuthenticator();
+            final HeaderSet sentHeaders = mMergedBaseHeaders;
+            final String failedAuthorization = sentHeaders != null ? sentHeaders.getAuthorization() : null;
+
+            final GenericRequest<T> replay = authenticator.isEnabled() ? copyForReplay() : null;
+            if (replay != null) {
+                replay.mAuthReplayCount = mAuthReplayCount + 1;
+                mReplay = replay;
+
+                if (authenticator.replayAfterRefresh(replay, failedAuthorization)) {
+                    return;
+                }
+                mReplay = null;
+            }
+        }
+
+        super.deliverError(error);
+    }
+
+    /**
+     * Returns a copy of this request to replay after a 401. Subclasses keep state of their own,
+     * e.g. their body, so they can only be replayed if they override this.
+     *
+     * @return Returns the copy, or null if the request can't be copied.
+     */
+    protected GenericRequest<T> copyForReplay() {
+        return getClass() == GenericRequest.class ? new GenericRequest<>(this) : null;
+    }
+
+    @Override
+    public void cancel() {
+        super.cancel();
+
+        final GenericRequest<T> replay = mReplay;
+        if (replay != null) {
+            replay.cancel();
+        }
+    }
+
+    /**
+     * Merges the headers of this request with the base headers of
+     * {@link com.overturelabs.Cannon#getBaseHeaders(CannonAuthenticator)}, which take precedence.
+     * Volley asks for the headers more than once, so the merge is kept until the base headers change.
+     */
     @Override
     public Map<String, String> getHeaders() {
-        if (mHeaders == null) {
-            mHeaders = new HashMap<>();
+        final HeaderSet baseHeaders = Cannon.getBaseHeaders(resolveAuthenticator());
+
+        // Read in the reverse order of the writes below, so that the merge is never older than its base.
+        final HeaderSet mergedBaseHeaders = mMergedBaseHeaders;
+        Map<String, String> mergedHeaders = mMergedHeaders;
+        if (mergedHeaders != null && mergedBaseHeaders == baseHeaders) {
+            return mergedHeaders;
         }
 
-        /**
-         * Only if Authenticator is enabled
-         * Attaches authentication token to the header
-         * Currently only supports OAUTH2.
-         */
-        if (Cannon.isAuthenticatorEnabled()) {
-            final CannonAuthenticator authenticator = CannonAuthenticator.getInstance();
-            final String authToken = authenticator.getAuthToken();
-            final CannonAuthenticator.AuthTokenType authTokenType = authenticator.getAuthTokenType();
-
-            if (authToken != null &&
-                    authToken.length() > 0) {
-                switch (authTokenType) {
-                    case OAUTH2:
-                        mHeaders.put("Authorization", "Bearer " + authToken);
-                        break;
-                }
+        // Let the server know which formats the parser understands, unless the caller already did.
+        String accept = null;
+        if (mResponseParser instanceof NegotiableResponseParser
+                && (mHeaders == null || !mHeaders.containsKey("Accept"))) {
+            accept = ((NegotiableResponseParser<T>) mResponseParser).getAccept();
+        }
+
+        if ((mHeaders == null || mHeaders.isEmpty()) && accept == null) {
+            // Nothing to merge, so share the base headers.
+            mergedHeaders = baseHeaders.getHeaders();
+        } else {
+            int size = baseHeaders.size() + (mHeaders == null ? 0 : mHeaders.size()) + 1;
+            mergedHeaders = new HashMap<>(size * 4 / 3 + 1);
+
+            if (mHeaders != null) {
+                mergedHeaders.putAll(mHeaders);
+            }
+            mergedHeaders.putAll(baseHeaders.getHeaders());
+            if (accept != null) {
+                mergedHeaders.put("Accept", accept);
             }
         }
 
-        // Set User Agent header to a special user agent string.
-        mHeaders.put("User-Agent", Cannon.getUserAgent());
+        mMergedHeaders = mergedHeaders;
+        mMergedBaseHeaders = baseHeaders;
 
-        return mHeaders;
+        return mergedHeaders;
     }
 }
@@ -0,0 +1,70 @@
+package com.overturelabs.cannon.toolbox;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable set of the headers Cannon attaches to every request, i.e. the user agent and,
+ * when the authenticator is enabled, the authorization.
+ * <br/>
+ * A new set is built whenever either of them changes, so the identity of a set doubles as its
+ * version. Requests compare sets by identity to tell whether their merged headers are stale.
+ */
+public final class HeaderSet {
+    public static final String HEADER_AUTHORIZATION = "Authorization";
+    public static final String HEADER_USER_AGENT = "User-Agent";
+
+    private final String mUserAgent;
+    private final String mAuthorization;
+    private final Map<String, String> mHeaders;
+
+    /**
+     * Construct a {@link com.overturelabs.cannon.toolbox.HeaderSet}.
+     *
+     * @param userAgent     User agent string.
+     * @param authorization Value of the authorization header, or null to leave it out.
+     */
+    public HeaderSet(String userAgent, String authorization) {
+        mUserAgent = userAgent;
+        mAuthorization = authorization;
+
+        Map<String, String> headers = new HashMap<>(4);
+        if (authorization != null) {
+            headers.put(HEADER_AUTHORIZATION, authorization);
+        }
+        headers.put(HEADER_USER_AGENT, userAgent);
+
+        mHeaders = Collections.unmodifiableMap(headers);
+    }
+
+    /**
+     * Checks whether this set was built from these exact strings. Strings are compared by identity,
+     * since they are only ever built once per change.
+     *
+     * @param userAgent     User agent string.
+     * @param authorization Value of the authorization header, or null.
+     * @return Returns true if this set is still current.
+     */
+    public boolean isFor(String userAgent, String authorization) {
+        return mUserAgent == userAgent && mAuthorization == authorization;
+    }
+
+    /**
+     * @return Returns the value of the authorization header, or null if there's none.
+     */
+    public String getAuthorization() {
+        return mAuthorization;
+    }
+
+    /**
+     * @return Returns the headers, which can't be modified.
+     */
+    public Map<String, String> getHeaders() {
+        return mHeaders;
+    }
+
+    public int size() {
+        return mHeaders.size();
+    }
+}
@@ -0,0 +1,108 @@
+package com.overturelabs.cannon.toolbox;
+
+import android.graphics.Bitmap;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Image resource point is a helper class that acts as an interface to an image endpoint
+ * that serves the same image in several size/quality variants.
+ * <br/>
+ * For example:
+ * <br/>
+ * <code>new ImageResourcePoint(BASE_URL)
+ *     .addVariant(160, "/photo/{{ photoId }}/thumb")
+ *     .addVariant(640, "/photo/{{ photoId }}/medium")
+ *     .addVariant(1600, "/photo/{{ photoId }}/large");</code>
+ */
+public class ImageResourcePoint {
+    private final String mBaseUrl;
+    private final List<Variant> mVariants = new ArrayList<>();
+
+    /**
+     * A single size/quality variant of the image.
+     */
+    public static class Variant {
+        private final int mWidth;
+        private final ResourcePoint<Bitmap> mResourcePoint;
+
+        Variant(String baseUrl, int width, String skeletonResourcePath) {
+            mWidth = width;
+            mResourcePoint = new ResourcePoint<Bitmap>(baseUrl, skeletonResourcePath) {};
+        }
+
+        public int getWidth() {
+            return mWidth;
+        }
+
+        public String getUrl(Map<String, String> resourcePathParams) throws UnsupportedEncodingException {
+            return mResourcePoint.getUrl(resourcePathParams);
+        }
+    }
+
+    /**
+     * Constructs an image resource point without any variants.
+     *
+     * @param baseUrl API base URL.
+     */
+    public ImageResourcePoint(String baseUrl) {
+        mBaseUrl = baseUrl;
+    }
+
+    /**
+     * Declares a variant of the image.
+     *
+     * @param width                Width of the image served by this variant, in pixels.
+     * @param skeletonResourcePath Skeleton resource path of this variant.
+     *                             Refer to {@link com.overturelabs.cannon.toolbox.ResourcePoint#setSkeletonResourcePath(String)}.
+     * @return Returns the updated {@link com.overturelabs.cannon.toolbox.ImageResourcePoint}.
+     */
+    public ImageResourcePoint addVariant(int width, String skeletonResourcePath) {
+        Variant variant = new Variant(mBaseUrl, width, skeletonResourcePath);
+
+        // Keep variants sorted from the smallest to the largest.
+        int index = 0;
+        while (index < mVariants.size() && mVariants.get(index).getWidth() <= width) {
+            index++;
+        }
+        mVariants.add(index, variant);
+
+        return this;
+    }
+
+    /**
+     * Picks the variant to fetch. On a good connection, this is the smallest variant that is
+     * at least as wide as the target. Slower connections step down to smaller variants.
+     *
+     * @param targetWidth Width the image will be displayed at, or 0 to use the largest variant.
+     * @param quality     Quality of the current connection.
+     * @return Returns the selected {@link com.overturelabs.cannon.toolbox.ImageResourcePoint.Variant}.
+     */
+    public Variant selectVariant(int targetWidth, BandwidthMeter.ConnectionQuality quality) {
+        if (mVariants.isEmpty()) {
+            throw new IllegalStateException("No variants were added to this image resource point.");
+        }
+
+        int ideal = mVariants.size() - 1;
+        if (targetWidth > 0) {
+            for (int i = 0; i < mVariants.size(); i++) {
+                if (mVariants.get(i).getWidth() >= targetWidth) {
+                    ideal = i;
+                    break;
+                }
+            }
+        }
+
+        switch (quality) {
+            case POOR:
+                return mVariants.get(0);
+            case MODERATE:
+                return mVariants.get(Math.max(0, ideal - 1));
+            default:
+                return mVariants.get(ideal);
+        }
+    }
+}
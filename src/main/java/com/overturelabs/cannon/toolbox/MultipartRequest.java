@@ -17,11 +17,14 @@ import okio.Buffer;
 
 /**
  * Multipart Request.
+ * <br/>
+ * The body is streamed by {@link com.overturelabs.cannon.OkHttpStack}, so attached files are read
+ * from disk while they are sent, however large they are.
  *
  * @param <T>   Type of expected response object.
  * @author      Steve Tan
  */
-public class MultipartRequest<T> extends GenericRequest<T> {
+public class MultipartRequest<T> extends GenericRequest<T> implements StreamingRequest {
 
     private RequestBody mRequestBody;
 
@@ -126,6 +129,22 @@ public class MultipartRequest<T> extends GenericRequest<T> {
         build(params, files);
     }
 
+    /**
+     * Construct a copy of a request, for replaying it. The body reads its files anew when sent again.
+     *
+     * @param source Request to copy.
+     */
+    protected MultipartRequest(MultipartRequest<T> source) {
+        super(source);
+
+        mRequestBody = source.mRequestBody;
+    }
+
+    @Override
+    protected GenericRequest<T> copyForReplay() {
+        return getClass() == MultipartRequest.class ? new MultipartRequest<>(this) : null;
+    }
+
     private void build(final Map<String, String> params, final Map<String, Pair<File, String>> files) {
         MultipartBuilder multipartBuilder = new MultipartBuilder().type(MultipartBuilder.FORM);
 
@@ -158,8 +177,15 @@ public class MultipartRequest<T> extends GenericRequest<T> {
         return mRequestBody.contentType().toString();
     }
 
+    @Override
+    public RequestBody getRequestBody() {
+        return mRequestBody;
+    }
+
     /**
-     * Returns the raw POST or PUT body to be sent.
+     * Returns the raw POST or PUT body to be sent. Only used by stacks that can't stream the
+     * body, since it reads every attached file into memory.
+     * Refer to {@link #getRequestBody()}.
      *
      * @throws com.android.volley.AuthFailureError in the event of auth failure
      */
@@ -0,0 +1,232 @@
+package com.overturelabs.cannon.toolbox;
+
+import android.os.Process;
+import android.os.SystemClock;
+
+import com.android.volley.Cache;
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.ResponseDelivery;
+import com.android.volley.VolleyError;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link com.android.volley.ResponseDelivery} that parses responses of
+ * {@link com.overturelabs.cannon.toolbox.GenericRequest}s on a dedicated pool of parse threads,
+ * before handing them to the actual delivery.
+ * <br/>
+ * Volley parses responses on the dispatcher thread that performed the request, so a slow parse
+ * holds a network thread hostage. Requests that are {@link #defer(GenericRequest) deferred} hand
+ * their raw response over instead, and the network thread immediately moves on to the next request.
+ * <br/>
+ * Since Volley only sees an unparsed placeholder, responses from the network are written to the
+ * cache here, once they were parsed successfully.
+ */
+public class ParseDelivery implements ResponseDelivery {
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final Cache mCache;
+    private final ResponseDelivery mDelivery;
+    private final ThreadPoolExecutor mExecutor;
+
+    private final AtomicLong mParsedCount = new AtomicLong();
+    private final AtomicLong mTotalQueueWaitMs = new AtomicLong();
+    private final AtomicLong mTotalParseTimeMs = new AtomicLong();
+    private final AtomicLong mMaxQueueWaitMs = new AtomicLong();
+    private final AtomicLong mMaxParseTimeMs = new AtomicLong();
+
+    /**
+     * Construct a {@link com.overturelabs.cannon.toolbox.ParseDelivery}.
+     *
+     * @param cache          {@link com.android.volley.Cache} of the request queue.
+     * @param delivery       {@link com.android.volley.ResponseDelivery} to deliver parsed responses with.
+     * @param threadPoolSize Number of parse threads.
+     */
+    public ParseDelivery(Cache cache, ResponseDelivery delivery, int threadPoolSize) {
+        mCache = cache;
+        mDelivery = delivery;
+
+        mExecutor = new ThreadPoolExecutor(threadPoolSize, threadPoolSize,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ParseThreadFactory());
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Marks a request to have its response parsed by this delivery. Only do this for requests
+     * that are added to a request queue using this delivery!
+     *
+     * @param request {@link com.overturelabs.cannon.toolbox.GenericRequest} to defer parsing for.
+     */
+    public void defer(GenericRequest<?> request) {
+        request.setParseDeferred(true);
+    }
+
+    @Override
+    public void postResponse(Request<?> request, Response<?> response) {
+        postResponse(request, response, null);
+    }
+
+    @Override
+    public void postResponse(Request<?> request, Response<?> response, Runnable runnable) {
+        if (request instanceof GenericRequest) {
+            GenericRequest<?> genericRequest = (GenericRequest<?>) request;
+            NetworkResponse networkResponse = genericRequest.takeDeferredResponse();
+
+            if (networkResponse != null) {
+                request.addMarker("parse-queued");
+                mExecutor.execute(new ParseRunnable(genericRequest, networkResponse,
+                        genericRequest.isDeferredResponseFromNetwork(), response, runnable));
+                return;
+            }
+        }
+
+        mDelivery.postResponse(request, response, runnable);
+    }
+
+    @Override
+    public void postError(Request<?> request, VolleyError error) {
+        mDelivery.postError(request, error);
+    }
+
+    /**
+     * @return Returns the number of responses parsed on the parse threads.
+     */
+    public long getParsedCount() {
+        return mParsedCount.get();
+    }
+
+    /**
+     * @return Returns the average time responses waited for a parse thread, in milliseconds.
+     */
+    public long getAverageQueueWaitMs() {
+        long count = mParsedCount.get();
+        return count == 0 ? 0 : mTotalQueueWaitMs.get() / count;
+    }
+
+    /**
+     * @return Returns the longest time a response waited for a parse thread, in milliseconds.
+     */
+    public long getMaxQueueWaitMs() {
+        return mMaxQueueWaitMs.get();
+    }
+
+    /**
+     * @return Returns the average time taken to parse a response, in milliseconds.
+     */
+    public long getAverageParseTimeMs() {
+        long count = mParsedCount.get();
+        return count == 0 ? 0 : mTotalParseTimeMs.get() / count;
+    }
+
+    /**
+     * @return Returns the longest time taken to parse a response, in milliseconds.
+     */
+    public long getMaxParseTimeMs() {
+        return mMaxParseTimeMs.get();
+    }
+
+    private void record(long queueWaitMs, long parseTimeMs) {
+        mParsedCount.incrementAndGet();
+        mTotalQueueWaitMs.addAndGet(queueWaitMs);
+        mTotalParseTimeMs.addAndGet(parseTimeMs);
+        updateMax(mMaxQueueWaitMs, queueWaitMs);
+        updateMax(mMaxParseTimeMs, parseTimeMs);
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    private class ParseRunnable implements Runnable {
+        private final GenericRequest<?> mRequest;
+        private final NetworkResponse mNetworkResponse;
+        private final boolean mIsFromNetwork;
+        private final Response<?> mPlaceholder;
+        private final Runnable mRunnable;
+        private final long mQueuedAtMs;
+
+        public ParseRunnable(GenericRequest<?> request, NetworkResponse networkResponse, boolean isFromNetwork,
+                             Response<?> placeholder, Runnable runnable) {
+            mRequest = request;
+            mNetworkResponse = networkResponse;
+            mIsFromNetwork = isFromNetwork;
+            mPlaceholder = placeholder;
+            mRunnable = runnable;
+            mQueuedAtMs = SystemClock.elapsedRealtime();
+        }
+
+        @Override
+        public void run() {
+            // The delivery will finish canceled requests, there's no point parsing them.
+            if (mRequest.isCanceled()) {
+                mDelivery.postResponse(mRequest, mPlaceholder, mRunnable);
+                return;
+            }
+
+            long startMs = SystemClock.elapsedRealtime();
+            Response<?> response;
+            try {
+                response = mRequest.parseDeferredResponse(mNetworkResponse);
+            } catch (RuntimeException e) {
+                if (!mIsFromNetwork) {
+                    // Don't let a bad cache entry fail the request again until it expires.
+                    mCache.remove(mRequest.getCacheKey());
+
+                    if (mRunnable != null) {
+                        // A soft expired entry, so the runnable sends the request to the network.
+                        // Treat it as a cache miss, and let the refresh deliver instead.
+                        mRequest.addMarker("cache-parse-failed");
+                        mRunnable.run();
+                        return;
+                    }
+                }
+
+                // Same as Volley does for exceptions thrown on the dispatcher thread.
+                mDelivery.postError(mRequest, new VolleyError(e));
+                return;
+            }
+            long endMs = SystemClock.elapsedRealtime();
+
+            record(startMs - mQueuedAtMs, endMs - startMs);
+            mRequest.addMarker("parse-complete");
+
+            if (mIsFromNetwork && mRequest.shouldCache() && response.cacheEntry != null) {
+                mCache.put(mRequest.getCacheKey(), response.cacheEntry);
+                mRequest.addMarker("network-cache-written");
+            }
+
+            response.intermediate = mPlaceholder.intermediate;
+            mDelivery.postResponse(mRequest, response, mRunnable);
+        }
+    }
+
+    private static class ParseThreadFactory implements ThreadFactory {
+        private final AtomicInteger mCount = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "CannonParser-" + mCount.getAndIncrement());
+            thread.setDaemon(true);
+
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.overturelabs.cannon.toolbox;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@link java.io.InputStream} that reports the progress of a response body as it is read,
+ * and paces the reads with a {@link com.overturelabs.cannon.toolbox.BandwidthLimiter}.
+ */
+public class ProgressInputStream extends FilterInputStream {
+    private final ProgressReporter mReporter;
+    private final BandwidthLimiter mLimiter;
+
+    /**
+     * Construct a {@link com.overturelabs.cannon.toolbox.ProgressInputStream}.
+     *
+     * @param in          Stream of the response body.
+     * @param totalBytes  Length of the body, or -1 if it isn't known.
+     * @param listener    {@link com.overturelabs.cannon.toolbox.ProgressListener}, or null.
+     * @param limiter     {@link com.overturelabs.cannon.toolbox.BandwidthLimiter}, or null.
+     */
+    public ProgressInputStream(InputStream in, long totalBytes, ProgressListener listener, BandwidthLimiter limiter) {
+        super(in);
+
+        mReporter = listener != null ? new ProgressReporter(listener, totalBytes) : null;
+        mLimiter = limiter;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        onRead(b == -1 ? -1 : 1);
+
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int count) throws IOException {
+        int read = super.read(buffer, offset, count);
+        onRead(read);
+
+        return read;
+    }
+
+    @Override
+    public long skip(long byteCount) throws IOException {
+        long skipped = super.skip(byteCount);
+        if (skipped > 0) {
+            onRead(skipped);
+        }
+
+        return skipped;
+    }
+
+    private void onRead(long byteCount) throws IOException {
+        if (byteCount == -1) {
+            if (mReporter != null) {
+                mReporter.onFinished();
+            }
+            return;
+        }
+
+        // Bytes already arrived, so waiting here slows down the next read, and in turn the sender.
+        if (mLimiter != null) {
+            mLimiter.acquire(byteCount);
+        }
+        if (mReporter != null) {
+            mReporter.onTransferred(byteCount);
+        }
+    }
+}
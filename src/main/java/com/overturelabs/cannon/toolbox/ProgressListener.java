@@ -0,0 +1,15 @@
+package com.overturelabs.cannon.toolbox;
+
+/**
+ * Listener for the progress of a request or response body. Called on the main thread,
+ * at most every {@link ProgressReporter#REPORT_INTERVAL_MS} milliseconds, and once more when
+ * the body has been transferred completely.
+ */
+public interface ProgressListener {
+    /**
+     * @param transferredBytes Number of bytes transferred so far.
+     * @param totalBytes       Length of the body, or -1 if it isn't known.
+     * @param bytesPerSecond   Average transfer rate since the transfer started.
+     */
+    void onProgress(long transferredBytes, long totalBytes, long bytesPerSecond);
+}
@@ -0,0 +1,89 @@
+package com.overturelabs.cannon.toolbox;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * Counts the bytes of a transfer on the thread doing it, and posts the progress to a
+ * {@link com.overturelabs.cannon.toolbox.ProgressListener} on the main thread. Posts are
+ * throttled, so that a fast transfer doesn't flood the main thread.
+ */
+public class ProgressReporter {
+    public static final long REPORT_INTERVAL_MS = 100;
+
+    private static final Handler sHandler = new Handler(Looper.getMainLooper());
+
+    private final ProgressListener mListener;
+    private final long mTotalBytes;
+
+    // Only touched by the transferring thread.
+    private long mTransferredBytes;
+    private long mStartTime;
+    private long mLastReportTime;
+    private boolean mIsFinalReported;
+
+    /**
+     * Construct a {@link com.overturelabs.cannon.toolbox.ProgressReporter}.
+     *
+     * @param listener   {@link com.overturelabs.cannon.toolbox.ProgressListener} to post to.
+     * @param totalBytes Length of the body, or -1 if it isn't known.
+     */
+    public ProgressReporter(ProgressListener listener, long totalBytes) {
+        mListener = listener;
+        mTotalBytes = totalBytes;
+    }
+
+    /**
+     * Starts counting from zero, e.g. when a request body is written again for a retry.
+     */
+    public void reset() {
+        mTransferredBytes = 0;
+        mStartTime = SystemClock.elapsedRealtime();
+        mLastReportTime = 0;
+        mIsFinalReported = false;
+    }
+
+    /**
+     * @param byteCount Number of bytes just transferred.
+     */
+    public void onTransferred(long byteCount) {
+        if (mStartTime == 0) {
+            reset();
+        }
+        mTransferredBytes += byteCount;
+
+        final long now = SystemClock.elapsedRealtime();
+        if (mTransferredBytes == mTotalBytes) {
+            mIsFinalReported = true;
+            post(now);
+        } else if (now - mLastReportTime >= REPORT_INTERVAL_MS) {
+            mLastReportTime = now;
+            post(now);
+        }
+    }
+
+    /**
+     * Reports the final count, unless it was reported already. Needed for bodies whose length
+     * wasn't known up front.
+     */
+    public void onFinished() {
+        if (!mIsFinalReported) {
+            mIsFinalReported = true;
+            post(SystemClock.elapsedRealtime());
+        }
+    }
+
+    private void post(long now) {
+        final long transferredBytes = mTransferredBytes;
+        final long elapsed = Math.max(now - mStartTime, 1);
+        final long bytesPerSecond = transferredBytes * 1000 / elapsed;
+
+        sHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                mListener.onProgress(transferredBytes, mTotalBytes, bytesPerSecond);
+            }
+        });
+    }
+}
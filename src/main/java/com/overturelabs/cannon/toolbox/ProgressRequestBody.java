@@ -0,0 +1,71 @@
+package com.overturelabs.cannon.toolbox;
+
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.RequestBody;
+
+import java.io.IOException;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.Okio;
+
+/**
+ * {@link com.squareup.okhttp.RequestBody} that reports the progress of another body as it is
+ * written, and paces the writes with a {@link com.overturelabs.cannon.toolbox.BandwidthLimiter}.
+ */
+public class ProgressRequestBody extends RequestBody {
+    private final RequestBody mBody;
+    private final ProgressListener mListener;
+    private final BandwidthLimiter mLimiter;
+
+    /**
+     * Construct a {@link com.overturelabs.cannon.toolbox.ProgressRequestBody}.
+     *
+     * @param body     Body to write.
+     * @param listener {@link com.overturelabs.cannon.toolbox.ProgressListener}, or null.
+     * @param limiter  {@link com.overturelabs.cannon.toolbox.BandwidthLimiter}, or null.
+     */
+    public ProgressRequestBody(RequestBody body, ProgressListener listener, BandwidthLimiter limiter) {
+        mBody = body;
+        mListener = listener;
+        mLimiter = limiter;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return mBody.contentType();
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        return mBody.contentLength();
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        final ProgressReporter reporter = mListener != null ? new ProgressReporter(mListener, contentLength()) : null;
+
+        BufferedSink countingSink = Okio.buffer(new ForwardingSink(sink) {
+            @Override
+            public void write(Buffer source, long byteCount) throws IOException {
+                if (mLimiter != null) {
+                    mLimiter.acquire(byteCount);
+                }
+
+                super.write(source, byteCount);
+
+                if (reporter != null) {
+                    reporter.onTransferred(byteCount);
+                }
+            }
+        });
+
+        mBody.writeTo(countingSink);
+        countingSink.flush();
+
+        if (reporter != null) {
+            reporter.onFinished();
+        }
+    }
+}
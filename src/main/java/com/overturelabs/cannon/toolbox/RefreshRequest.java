@@ -2,9 +2,9 @@ package com.overturelabs.cannon.toolbox;
 
 import com.android.volley.Response;
 import com.android.volley.VolleyError;
-import com.overturelabs.Cannon;
 import com.overturelabs.cannon.toolbox.parsers.ResponseParser;
 
+import java.net.HttpURLConnection;
 import java.util.Map;
 
 /**
@@ -32,36 +32,46 @@ public class RefreshRequest<T> extends GenericRequest<T> {
         return Priority.IMMEDIATE;
     }
 
+    /**
+     * Refresh requests are never replayed, a 401 means the refresh token is no longer valid.
+     */
+    @Override
+    protected boolean isReplayableOnAuthFailure() {
+        return false;
+    }
+
     @Override
     protected void deliverResponse(T response) {
         super.deliverResponse(response);
 
-        if (Cannon.isAuthenticatorEnabled()) {
-            CannonAuthenticator.getInstance().processPendingQueue();
+        final CannonAuthenticator authenticator = resolveAuthenticator();
+        if (authenticator.isEnabled()) {
+            authenticator.onRefreshSucceeded();
         }
     }
     
     /**
-    * Clears Auth Token if Refresh Token has Expired
+    * Clears Auth Token if Refresh Token has Expired, i.e. the auth server rejected it with a
+    * 400, 401 or 403. Any other failure is retried later.
     */
     @Override
     public void deliverError(VolleyError error) {
-        if (!Cannon.isAuthenticatorEnabled()) {
+        final CannonAuthenticator authenticator = resolveAuthenticator();
+        if (!authenticator.isEnabled()) {
             super.deliverError(error);
             return;
         }
 
-        final CannonAuthenticator authenticator = CannonAuthenticator.getInstance();
-        if (error.networkResponse != null) {
-            if (error.networkResponse.statusCode != 0) {
-                // Refresh Token Expired
-                authenticator.invalidate();
-            } else {
-                authenticator.processPendingQueue();
-            }
+        final int statusCode = error.networkResponse != null ? error.networkResponse.statusCode : 0;
+        if (statusCode == HttpURLConnection.HTTP_BAD_REQUEST
+                || statusCode == HttpURLConnection.HTTP_UNAUTHORIZED
+                || statusCode == HttpURLConnection.HTTP_FORBIDDEN) {
+            // Refresh Token Expired
+            authenticator.invalidate();
         } else {
-            // No/Limited Connectivity Error
+            // No/Limited Connectivity Error, or the auth server is having a bad time. Try again later.
             authenticator.processPendingQueue();
+            authenticator.retryRefresh();
         }
         super.deliverError(error);
     }
@@ -0,0 +1,316 @@
+package com.overturelabs.cannon.toolbox;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.overturelabs.Cannon;
+import com.overturelabs.cannon.toolbox.parsers.ResponseParser;
+import com.overturelabs.cannon.toolbox.parsers.StreamingJsonArrayResponseParser;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fluent builder for requests to a {@link com.overturelabs.cannon.toolbox.ResourcePoint},
+ * e.g.
+ * <pre>
+ * {@code
+ * Cannon.request(UserResourcePoint.class)
+ *         .addPathParam("userId", userId)
+ *         .addParam("fields", "name,avatar")
+ *         .setListener(listener)
+ *         .setErrorListener(errorListener)
+ *         .fire();
+ * }
+ * </pre>
+ * Params are kept as key/value pairs in arrays rather than maps, and go straight into the URL
+ * or request body when the request is built. {@link #reset()} clears the params but keeps
+ * everything else, so a builder can be reused for repeated calls, such as polling.
+ * <br/>
+ * A builder is not thread-safe, but the requests it builds don't share any state with it.
+ *
+ * @param <T> Type of expected response object.
+ */
+public class RequestBuilder<T> {
+    private static final String DEFAULT_PARAMS_ENCODING = "UTF-8";
+    private static final int INITIAL_PAIR_CAPACITY = 4;
+
+    private final ResourcePoint<T> mResourcePoint;
+
+    private int mMethod = Request.Method.GET;
+    private String mEncoding = DEFAULT_PARAMS_ENCODING;
+    private Response.Listener<T> mListener;
+    private Response.ErrorListener mErrorListener;
+    private StreamingJsonArrayResponseParser.BatchListener<?> mBatchListener;
+    private Object mTag;
+    private boolean mShouldCache = true;
+
+    private String[] mPathParams = new String[INITIAL_PAIR_CAPACITY * 2];
+    private int mPathParamCount;
+    private String[] mParams = new String[INITIAL_PAIR_CAPACITY * 2];
+    private int mParamCount;
+    private String[] mHeaders = new String[INITIAL_PAIR_CAPACITY * 2];
+    private int mHeaderCount;
+
+    /**
+     * Construct a {@link com.overturelabs.cannon.toolbox.RequestBuilder}.
+     * Refer to {@link ResourcePoint#newRequest()} and {@link com.overturelabs.Cannon#request(Class)}.
+     *
+     * @param resourcePoint {@link com.overturelabs.cannon.toolbox.ResourcePoint} to build requests for.
+     */
+    public RequestBuilder(ResourcePoint<T> resourcePoint) {
+        mResourcePoint = resourcePoint;
+    }
+
+    /**
+     * @param method HTTP request method. Refer to {@link com.android.volley.Request.Method}. Defaults to {@code GET}.
+     * @return Returns this {@link com.overturelabs.cannon.toolbox.RequestBuilder}.
+     */
+    public RequestBuilder<T> setMethod(int method) {
+        mMethod = method;
+        return this;
+    }
+
+    /**
+     * @param encoding Charset to encode the URL and request body in. Defaults to {@code UTF-8}.
+     * @return Returns this {@link com.overturelabs.cannon.toolbox.RequestBuilder}.
+     */
+    public RequestBuilder<T> setEncoding(String encoding) {
+        mEncoding = encoding;
+        return this;
+    }
+
+    /**
+     * Add a value for a placeholder in the skeleton resource path.
+     *
+     * @param key   Placeholder identifier.
+     * @param value Value to fill in.
+     * @return Returns this {@link com.overturelabs.cannon.toolbox.RequestBuilder}.
+     */
+    public RequestBuilder<T> addPathParam(String key, String value) {
+        mPathParams = ensureCapacity(mPathParams, mPathParamCount);
+        mPathParams[2 * mPathParamCount] = key;
+        mPathParams[2 * mPathParamCount + 1] = value;
+        mPathParamCount++;
+        return this;
+    }
+
+    /**
+     * Add a request param. Same as with {@link com.overturelabs.Cannon#fireAt}, params of a {@code GET}
+     * request are appended to the URL, and params of any other request go into the request body.
+     *
+     * @param key   Param key. Keys may repeat.
+     * @param value Param value.
+     * @return Returns this {@link com.overturelabs.cannon.toolbox.RequestBuilder}.
+     */
+    public RequestBuilder<T> addParam(String key, String value) {
+        mParams = ensureCapacity(mParams, mParamCount);
+        mParams[2 * mParamCount] = key;
+        mParams[2 * mParamCount + 1] = value;
+        mParamCount++;
+        return this;
+    }
+
+    /**
+     * Add a request header.
+     *
+     * @param name  Header name.
+     * @param value Header value.
+     * @return Returns this {@link com.overturelabs.cannon.toolbox.RequestBuilder}.
+     */
+    public RequestBuilder<T> addHeader(String name, String value) {
+        mHeaders = ensureCapacity(mHeaders, mHeaderCount);
+        mHeaders[2 * mHeaderCount] = name;
+        mHeaders[2 * mHeaderCount + 1] = value;
+        mHeaderCount++;
+        return this;
+    }
+
+    /**
+     * @param listener Success {@link com.android.volley.Response.Listener}.
+     * @return Returns this {@link com.overturelabs.cannon.toolbox.RequestBuilder}.
+     */
+    public RequestBuilder<T> setListener(Response.Listener<T> listener) {
+        mListener = listener;
+        return this;
+    }
+
+    /**
+     * @param errorListener {@link com.android.volley.Response.ErrorListener}.
+     * @return Returns this {@link com.overturelabs.cannon.toolbox.RequestBuilder}.
+     */
+    public RequestBuilder<T> setErrorListener(Response.ErrorListener errorListener) {
+        mErrorListener = errorListener;
+        return this;
+    }
+
+    /**
+     * @param batchListener Listener for the batches of a
+     *                      {@link com.overturelabs.cannon.toolbox.parsers.StreamingJsonArrayResponseParser}.
+     * @return Returns this {@link com.overturelabs.cannon.toolbox.RequestBuilder}.
+     */
+    public RequestBuilder<T> setBatchListener(StreamingJsonArrayResponseParser.BatchListener<?> batchListener) {
+        mBatchListener = batchListener;
+        return this;
+    }
+
+    /**
+     * @param tag Tag for cancelling requests with {@link com.android.volley.RequestQueue#cancelAll(Object)}.
+     * @return Returns this {@link com.overturelabs.cannon.toolbox.RequestBuilder}.
+     */
+    public RequestBuilder<T> setTag(Object tag) {
+        mTag = tag;
+        return this;
+    }
+
+    /**
+     * @param shouldCache Whether responses may be cached. Defaults to true.
+     * @return Returns this {@link com.overturelabs.cannon.toolbox.RequestBuilder}.
+     */
+    public RequestBuilder<T> setShouldCache(boolean shouldCache) {
+        mShouldCache = shouldCache;
+        return this;
+    }
+
+    /**
+     * Clears the path params, params and headers. The method, encoding, listeners, tag
+     * and caching policy are kept.
+     *
+     * @return Returns this {@link com.overturelabs.cannon.toolbox.RequestBuilder}.
+     */
+    public RequestBuilder<T> reset() {
+        Arrays.fill(mPathParams, 0, 2 * mPathParamCount, null);
+        Arrays.fill(mParams, 0, 2 * mParamCount, null);
+        Arrays.fill(mHeaders, 0, 2 * mHeaderCount, null);
+        mPathParamCount = 0;
+        mParamCount = 0;
+        mHeaderCount = 0;
+        return this;
+    }
+
+    /**
+     * Builds the request. The builder can be changed or reused afterwards without affecting it.
+     *
+     * @return Returns the {@link com.overturelabs.cannon.toolbox.GenericRequest}.
+     * @throws UnsupportedEncodingException Thrown when value cannot be encoded.
+     */
+    public GenericRequest<T> build() throws UnsupportedEncodingException {
+        Map<String, String> headers = null;
+        if (mHeaderCount > 0) {
+            headers = new HashMap<>(mHeaderCount * 2 + 4); // Room for the headers GenericRequest adds
+            for (int i = 0; i < mHeaderCount; i++) {
+                headers.put(mHeaders[2 * i], mHeaders[2 * i + 1]);
+            }
+        }
+
+        GenericRequest<T> request;
+
+        if (mMethod == Request.Method.GET) {
+            String url = mResourcePoint.getUrl(mPathParams, mPathParamCount, mParams, mParamCount, mEncoding);
+
+            request = new GenericRequest<>(mMethod, url, mResourcePoint.getResponseParser(),
+                    headers, null, mListener, mErrorListener);
+            request.setCacheKey(mResourcePoint.getCacheKey(mPathParams, mPathParamCount, mParams, mParamCount, mEncoding));
+        } else {
+            String url = mResourcePoint.getUrl(mPathParams, mPathParamCount, null, 0, mEncoding);
+
+            request = new FormRequest<>(mMethod, url, mResourcePoint.getResponseParser(), headers,
+                    Arrays.copyOf(mParams, 2 * mParamCount), mParamCount, mEncoding,
+                    mListener, mErrorListener);
+        }
+
+        request.setTag(mTag);
+        request.setBatchListener(mBatchListener);
+        request.setShouldCache(mShouldCache);
+        request.setAuthenticator(mResourcePoint.getAuthenticator());
+        request.setBandwidthLimiter(mResourcePoint.getBandwidthLimiter());
+
+        return request;
+    }
+
+    /**
+     * Builds and fires the request.
+     *
+     * @return Returns true if cannon was fired, false if otherwise.
+     * @throws Cannon.NotLoadedException OMGZ! ZE CANNON IS NOT ZE LOADED!
+     * @throws UnsupportedEncodingException Thrown when value cannot be encoded.
+     */
+    public boolean fire() throws Cannon.NotLoadedException, UnsupportedEncodingException {
+        return Cannon.fire(build());
+    }
+
+    private static String[] ensureCapacity(String[] pairs, int pairCount) {
+        if (2 * pairCount < pairs.length) {
+            return pairs;
+        }
+
+        return Arrays.copyOf(pairs, pairs.length * 2);
+    }
+
+    /**
+     * {@link com.overturelabs.cannon.toolbox.GenericRequest} that encodes its form body
+     * straight from key/value pairs.
+     */
+    private static class FormRequest<T> extends GenericRequest<T> {
+        private final String[] mParams;
+        private final int mParamCount;
+        private final String mEncoding;
+
+        public FormRequest(int method, String url, ResponseParser<T> responseParser,
+                           Map<String, String> headers, String[] params, int paramCount, String encoding,
+                           Response.Listener<T> successListener,
+                           Response.ErrorListener errorListener) {
+            super(method, url, responseParser, headers, null, successListener, errorListener);
+
+            mParams = params;
+            mParamCount = paramCount;
+            mEncoding = encoding;
+        }
+
+        private FormRequest(FormRequest<T> source) {
+            super(source);
+
+            mParams = source.mParams;
+            mParamCount = source.mParamCount;
+            mEncoding = source.mEncoding;
+        }
+
+        @Override
+        protected GenericRequest<T> copyForReplay() {
+            return new FormRequest<>(this);
+        }
+
+        @Override
+        protected String getParamsEncoding() {
+            return mEncoding;
+        }
+
+        @Override
+        public byte[] getBody() throws AuthFailureError {
+            if (mParamCount == 0) {
+                return null;
+            }
+
+            try {
+                StringBuilder body = new StringBuilder(mParamCount * 24);
+                for (int i = 0; i < mParamCount; i++) {
+                    if (i > 0) {
+                        body.append('&');
+                    }
+                    UrlBuilder.appendEncoded(body, mParams[2 * i], mEncoding);
+                    body.append('=');
+                    if (mParams[2 * i + 1] != null) {
+                        UrlBuilder.appendEncoded(body, mParams[2 * i + 1], mEncoding);
+                    }
+                }
+
+                return body.toString().getBytes(mEncoding);
+            } catch (UnsupportedEncodingException e) {
+                // Same as Volley does for unsupported params encodings.
+                throw new RuntimeException("Encoding not supported: " + mEncoding, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.overturelabs.cannon.toolbox;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Skeleton resource path, such as <code>/user/{{ userId }}/posts</code>, parsed once into
+ * literal and placeholder segments, so that rendering it is a single pass over the segments.
+ * <br/>
+ * A skeleton path that isn't valid has no placeholders, and is always rendered as-is.
+ */
+public class ResourcePathTemplate {
+    private final static String SKELETON_PATH_REGEX = "^(?:/(?:(?:\\{\\{\\s*[\\d\\w]+\\s*\\}{2})|(?:\\w+[-]*[\\w]*)))+$";
+    private final static Pattern SKELETON_PATH_PATTERN = Pattern.compile(SKELETON_PATH_REGEX);
+    private final static String PLACEHOLDER_START = "{{";
+    private final static String PLACEHOLDER_END = "}}";
+    private final static int EXPECTED_VALUE_LENGTH = 16;
+
+    private static final ThreadLocal<StringBuilder> sBuilder = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(128);
+        }
+    };
+
+    private final String mSkeletonResourcePath;
+    private final String[] mLiterals;     // One more than there are placeholders.
+    private final String[] mNames;
+    private final String[] mPlaceholders; // As written in the skeleton path, for placeholders without a value.
+    private final int mEstimatedLength;
+
+    /**
+     * Parses a skeleton resource path.
+     *
+     * @param skeletonResourcePath Skeleton resource path. Refer to
+     *                             {@link ResourcePoint#setSkeletonResourcePath(String)}.
+     */
+    public ResourcePathTemplate(String skeletonResourcePath) {
+        mSkeletonResourcePath = skeletonResourcePath;
+
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        int literalStart = 0;
+
+        if (SKELETON_PATH_PATTERN.matcher(skeletonResourcePath).matches()) {
+            int start;
+            while ((start = skeletonResourcePath.indexOf(PLACEHOLDER_START, literalStart)) != -1) {
+                int end = skeletonResourcePath.indexOf(PLACEHOLDER_END, start) + PLACEHOLDER_END.length();
+
+                literals.add(skeletonResourcePath.substring(literalStart, start));
+                names.add(skeletonResourcePath.substring(start + PLACEHOLDER_START.length(),
+                        end - PLACEHOLDER_END.length()).trim());
+                placeholders.add(skeletonResourcePath.substring(start, end));
+                literalStart = end;
+            }
+        }
+        literals.add(skeletonResourcePath.substring(literalStart));
+
+        mLiterals = literals.toArray(new String[literals.size()]);
+        mNames = names.toArray(new String[names.size()]);
+        mPlaceholders = placeholders.toArray(new String[placeholders.size()]);
+        mEstimatedLength = skeletonResourcePath.length() + mNames.length * EXPECTED_VALUE_LENGTH;
+    }
+
+    /**
+     * Construct a template from segments that were split at compile time. Used by generated code.
+     *
+     * @param skeletonResourcePath Skeleton resource path the segments were split from.
+     * @param literals             Literal segments, one more than there are placeholders.
+     * @param names                Placeholder identifiers.
+     * @param placeholders         Placeholders as written in the skeleton path.
+     */
+    public ResourcePathTemplate(String skeletonResourcePath, String[] literals, String[] names, String[] placeholders) {
+        if (literals.length != names.length + 1 || placeholders.length != names.length) {
+            throw new IllegalArgumentException("Segments don't match the skeleton resource path.");
+        }
+
+        mSkeletonResourcePath = skeletonResourcePath;
+        mLiterals = literals;
+        mNames = names;
+        mPlaceholders = placeholders;
+        mEstimatedLength = skeletonResourcePath.length() + mNames.length * EXPECTED_VALUE_LENGTH;
+    }
+
+    /**
+     * @return Returns the skeleton resource path this template was parsed from.
+     */
+    public String getSkeletonResourcePath() {
+        return mSkeletonResourcePath;
+    }
+
+    /**
+     * @return Returns the names of the placeholders, in order of appearance.
+     */
+    public String[] getPlaceholderNames() {
+        return mNames.clone();
+    }
+
+    /**
+     * Fills the placeholders with the provided parameters. Parameter values are trimmed and encoded,
+     * placeholders without a parameter are left as they are.
+     *
+     * @param params   Parameters for filling into the placeholders.
+     * @param encoding Charset to encode the parameters in.
+     * @return Returns the resource path.
+     * @throws UnsupportedEncodingException Thrown when value cannot be encoded.
+     */
+    public String render(Map<String, String> params, String encoding) throws UnsupportedEncodingException {
+        if (mNames.length == 0 || params == null || params.isEmpty()) {
+            return mSkeletonResourcePath;
+        }
+
+        StringBuilder builder = sBuilder.get();
+        builder.setLength(0);
+        appendTo(builder, params, encoding);
+
+        return builder.toString();
+    }
+
+    /**
+     * Same as {@link #render(java.util.Map, String)}, but appends the resource path to a builder.
+     *
+     * @param builder  {@link java.lang.StringBuilder} to append to.
+     * @param params   Parameters for filling into the placeholders.
+     * @param encoding Charset to encode the parameters in.
+     * @throws UnsupportedEncodingException Thrown when value cannot be encoded.
+     */
+    public void appendTo(StringBuilder builder, Map<String, String> params, String encoding) throws UnsupportedEncodingException {
+        if (mNames.length == 0 || params == null || params.isEmpty()) {
+            builder.append(mSkeletonResourcePath);
+            return;
+        }
+
+        builder.ensureCapacity(builder.length() + mEstimatedLength);
+
+        for (int i = 0; i < mNames.length; i++) {
+            builder.append(mLiterals[i]);
+
+            String value = params.get(mNames[i]);
+            if (value == null) {
+                builder.append(mPlaceholders[i]);
+            } else {
+                // We don't validate the value, we just encode it.
+                UrlBuilder.appendEncoded(builder, value.trim(), encoding);
+            }
+        }
+        builder.append(mLiterals[mNames.length]);
+    }
+
+    /**
+     * Same as {@link #appendTo(StringBuilder, java.util.Map, String)}, but takes the parameters
+     * as key/value pairs, i.e. <code>{ key0, value0, key1, value1, ... }</code>.
+     * Should a key appear more than once, the last value wins.
+     *
+     * @param builder   {@link java.lang.StringBuilder} to append to.
+     * @param params    Parameters for filling into the placeholders, as key/value pairs.
+     * @param pairCount Number of key/value pairs in use.
+     * @param encoding  Charset to encode the parameters in.
+     * @throws UnsupportedEncodingException Thrown when value cannot be encoded.
+     */
+    public void appendTo(StringBuilder builder, String[] params, int pairCount, String encoding) throws UnsupportedEncodingException {
+        if (mNames.length == 0 || pairCount == 0) {
+            builder.append(mSkeletonResourcePath);
+            return;
+        }
+
+        builder.ensureCapacity(builder.length() + mEstimatedLength);
+
+        for (int i = 0; i < mNames.length; i++) {
+            builder.append(mLiterals[i]);
+
+            String value = null;
+            for (int j = pairCount - 1; j >= 0; j--) {
+                if (mNames[i].equals(params[2 * j])) {
+                    value = params[2 * j + 1];
+                    break;
+                }
+            }
+
+            if (value == null) {
+                builder.append(mPlaceholders[i]);
+            } else {
+                UrlBuilder.appendEncoded(builder, value.trim(), encoding);
+            }
+        }
+        builder.append(mLiterals[mNames.length]);
+    }
+}
@@ -1,13 +1,17 @@
 package com.overturelabs.cannon.toolbox;
 
+import com.google.gson.reflect.TypeToken;
 import com.overturelabs.cannon.toolbox.parsers.GsonResponseParser;
 import com.overturelabs.cannon.toolbox.parsers.ResponseParser;
 import com.overturelabs.cannon.toolbox.parsers.StringResponseParser;
 
 import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 /**
  * Resource point is a helper class that acts as an interface to a specific API endpoint.
@@ -17,18 +21,16 @@ import java.util.regex.Pattern;
  */
 public abstract class ResourcePoint<T> {
     private final static String DEFAULT_PARAMS_ENCODING = "UTF-8";
-    private final static String SKELETON_PATH_REGEX = "^(?:/(?:(?:\\{\\{\\s*[\\d\\w]+\\s*\\}{2})|(?:\\w+[-]*[\\w]*)))+$";
-    private final static Pattern SKELETON_PATH_PATTERN = Pattern.compile(SKELETON_PATH_REGEX);
-    private final static String PLACEHOLDER_KEY_REGEX = "^[\\d\\w]+$";
-    private final static Pattern PLACEHOLDER_KEY_PATTERN = Pattern.compile(PLACEHOLDER_KEY_REGEX);
-    // private final static String PLACEHOLDER_VALUE_REGEX = "^[\\d\\w]+$";
-    // private final static Pattern PLACEHOLDER_VALUE_PATTERN = Pattern.compile(PLACEHOLDER_VALUE_REGEX);
-    private final static String PLACEHOLDER_REGEX_PRE = "\\{\\{\\s*";
-    private final static String PLACEHOLDER_REGEX_POST = "\\s*\\}{2}";
+    private final static ResourcePathTemplate DEFAULT_RESOURCE_PATH_TEMPLATE = new ResourcePathTemplate("/");
 
     private String mBaseUrl = "http://127.0.0.1";
     private String mSkeletonResourcePath = "/";
+    private ResourcePathTemplate mResourcePathTemplate = DEFAULT_RESOURCE_PATH_TEMPLATE;
     private ResponseParser mResponseParser;
+    private String mCanonicalBaseUrl;
+    private Set<String> mCacheKeyIgnoredParams = Collections.emptySet();
+    private volatile CannonAuthenticator mAuthenticator;
+    private volatile BandwidthLimiter mBandwidthLimiter;
 
     /**
      * Constructs a resource point with a default {@link com.overturelabs.cannon.toolbox.parsers.StringResponseParser}.
@@ -63,6 +65,18 @@ public abstract class ResourcePoint<T> {
         mResponseParser = new GsonResponseParser<>(resourceClass);
     }
 
+    /**
+     * Constructs a resource point that uses a {@link com.overturelabs.cannon.toolbox.parsers.GsonResponseParser}
+     * to parse an object of the specified generic type, e.g. {@code new TypeToken<List<User>>() {}}.
+     *
+     * @param baseUrl   API base URL.
+     * @param typeToken {@link com.google.gson.reflect.TypeToken} of the response object.
+     */
+    public ResourcePoint(String baseUrl, TypeToken<T> typeToken) {
+        mBaseUrl = baseUrl;
+        mResponseParser = new GsonResponseParser<>(typeToken);
+    }
+
     /**
      * Constructs a resource point with a default {@link com.overturelabs.cannon.toolbox.parsers.StringResponseParser}.
      *
@@ -86,6 +100,7 @@ public abstract class ResourcePoint<T> {
     public ResourcePoint(String baseUrl, String skeletonResourcePath) {
         mBaseUrl = baseUrl;
         mSkeletonResourcePath = skeletonResourcePath;
+        mResourcePathTemplate = new ResourcePathTemplate(skeletonResourcePath);
         mResponseParser = new StringResponseParser();
     }
 
@@ -113,6 +128,7 @@ public abstract class ResourcePoint<T> {
     public ResourcePoint(String baseUrl, String skeletonResourcePath, ResponseParser<T> responseParser) {
         mBaseUrl = baseUrl;
         mSkeletonResourcePath = skeletonResourcePath;
+        mResourcePathTemplate = new ResourcePathTemplate(skeletonResourcePath);
         mResponseParser = responseParser;
     }
 
@@ -141,9 +157,42 @@ public abstract class ResourcePoint<T> {
     public ResourcePoint(String baseUrl, String skeletonResourcePath, Class<T> resourceClass) {
         mBaseUrl = baseUrl;
         mSkeletonResourcePath = skeletonResourcePath;
+        mResourcePathTemplate = new ResourcePathTemplate(skeletonResourcePath);
         mResponseParser = new GsonResponseParser<>(resourceClass);
     }
 
+    /**
+     * Constructs a resource point that uses a {@link com.overturelabs.cannon.toolbox.parsers.GsonResponseParser}
+     * to parse an object of the specified generic type, e.g. {@code new TypeToken<List<User>>() {}}.
+     *
+     * @param baseUrl              API base URL.
+     * @param skeletonResourcePath Skeleton resource path is a resource path with placeholders
+     *                             that you can replace with actual values during runtime.
+     *                             Refer to {@link ResourcePoint#setSkeletonResourcePath(String)}.
+     * @param typeToken            {@link com.google.gson.reflect.TypeToken} of the response object.
+     */
+    public ResourcePoint(String baseUrl, String skeletonResourcePath, TypeToken<T> typeToken) {
+        mBaseUrl = baseUrl;
+        mSkeletonResourcePath = skeletonResourcePath;
+        mResourcePathTemplate = new ResourcePathTemplate(skeletonResourcePath);
+        mResponseParser = new GsonResponseParser<>(typeToken);
+    }
+
+    /**
+     * Constructs a resource point from a skeleton resource path that was already parsed,
+     * e.g. at compile time by the Cannon compiler.
+     *
+     * @param baseUrl              API base URL.
+     * @param resourcePathTemplate Parsed skeleton resource path.
+     * @param responseParser       {@link com.overturelabs.cannon.toolbox.parsers.ResponseParser} for parsing response.
+     */
+    public ResourcePoint(String baseUrl, ResourcePathTemplate resourcePathTemplate, ResponseParser<T> responseParser) {
+        mBaseUrl = baseUrl;
+        mSkeletonResourcePath = resourcePathTemplate.getSkeletonResourcePath();
+        mResourcePathTemplate = resourcePathTemplate;
+        mResponseParser = responseParser;
+    }
+
     /**
      * This function will only process the skeleton resource path if it's valid.
      * Otherwise, the entire skeleton path is passed, as-is, upwards as the URL
@@ -155,36 +204,8 @@ public abstract class ResourcePoint<T> {
      * @throws UnsupportedEncodingException Thrown when value cannot be encoded.
      */
     public String getResourcePath(Map<String, String> params, String encoding) throws UnsupportedEncodingException {
-        String resourcePath = mSkeletonResourcePath;
-
-        // Validate skeleton resource path.
-        if (SKELETON_PATH_PATTERN.matcher(resourcePath).matches() && params != null && params.size() > 0) {
-            for (Map.Entry<String, String> entry : params.entrySet()) {
-                // Check if key is valid
-                String key = entry.getKey();
-                String value = entry.getValue();
-
-                if (key != null && key.length() > 0) {
-                    key = key.trim();
-                }
-
-                if (value != null && value.length() > 0) {
-                    value = value.trim();
-                }
-
-                // We don't validate the value, we just encode it.
-                value = URLEncoder.encode(value, encoding);
-
-                if (PLACEHOLDER_KEY_PATTERN.matcher(key).matches()) {
-                    String placeholderRegexp = PLACEHOLDER_REGEX_PRE + entry.getKey() + PLACEHOLDER_REGEX_POST;
-
-
-                    resourcePath = resourcePath.replaceAll(placeholderRegexp, value);
-                }
-            }
-        }
-
-        return resourcePath;
+        // The skeleton path is validated and split into segments once, when it's set.
+        return mResourcePathTemplate.render(params, encoding);
     }
 
     /**
@@ -224,6 +245,7 @@ public abstract class ResourcePoint<T> {
      */
     public ResourcePoint<T> setSkeletonResourcePath(String skeletonResourcePath) {
         mSkeletonResourcePath = skeletonResourcePath;
+        mResourcePathTemplate = new ResourcePathTemplate(skeletonResourcePath);
 
         return this;
     }
@@ -256,8 +278,6 @@ public abstract class ResourcePoint<T> {
      * If a map of query parameters are provided, a URL query parameter string
      * will be constructed and appended to the URL. {@code UTF-8} is used as the
      * default charset for encoding the URL query parameter string.
-     * <br/>
-     * NOTE: Any key/value pair that cannot be encoded properly will be ignored!
      *
      * @param resourcePathParams Map of values for filling into the skeleton resource path.
      * @param urlQueryParams     Map of query params.
@@ -272,8 +292,6 @@ public abstract class ResourcePoint<T> {
      * Constructs the URL based on the base URL and resource path provided.
      * If a map of query parameters are provided, a URL query parameter string
      * will be constructed and appended to the URL.
-     * <br/>
-     * NOTE: Any key/value pair that cannot be encoded properly will be ignored!
      *
      * @param resourcePathParams Map of values for filling into the skeleton resource path.
      * @param urlQueryParams     Map of query params.
@@ -282,29 +300,174 @@ public abstract class ResourcePoint<T> {
      * @throws UnsupportedEncodingException Thrown when value cannot be encoded.
      */
     public String getUrl(Map<String, String> resourcePathParams, Map<String, String> urlQueryParams, String encoding) throws UnsupportedEncodingException {
-        String url = mBaseUrl + getResourcePath(resourcePathParams);
-
-        if (urlQueryParams != null && urlQueryParams.size() > 0) {
-            boolean isFirst = true;
-            for (Map.Entry<String, String> entry : urlQueryParams.entrySet()) {
-                if (isFirst) {
-                    isFirst = false;
-                    url += "?";
-                } else {
-                    url += "&";
-                }
+        return getUrl(resourcePathParams, urlQueryParams, encoding, false);
+    }
 
-                try {
-                    url += URLEncoder.encode(entry.getKey(), encoding);
-                    url += "=";
-                    url += URLEncoder.encode(entry.getValue(), encoding);
-                } catch (UnsupportedEncodingException e) {
-                    e.printStackTrace(); // Ignore this pair of key/value.
+    /**
+     * Constructs the URL based on the base URL and resource path provided.
+     * If a map of query parameters are provided, a URL query parameter string
+     * will be constructed and appended to the URL.
+     *
+     * @param resourcePathParams Map of values for filling into the skeleton resource path.
+     * @param urlQueryParams     Map of query params.
+     * @param encoding           Charset to encode the URL parameters in.
+     * @param isQuerySorted      Whether to sort the query params by key, so that the same params
+     *                           always give the same URL.
+     * @return Returns a full URI path.
+     * @throws UnsupportedEncodingException Thrown when value cannot be encoded.
+     */
+    public String getUrl(Map<String, String> resourcePathParams, Map<String, String> urlQueryParams,
+                         String encoding, boolean isQuerySorted) throws UnsupportedEncodingException {
+        return new UrlBuilder(mBaseUrl, mSkeletonResourcePath.length() + estimateQueryLength(urlQueryParams))
+                .appendPath(mResourcePathTemplate, resourcePathParams, encoding)
+                .appendQueryParameters(urlQueryParams, encoding, isQuerySorted)
+                .build();
+    }
+
+    /**
+     * Constructs the cache key for a request. Unlike the URL, the cache key is the same for every
+     * spelling of the same request: the base URL is normalised, the query params are sorted by key
+     * and params set with {@link #setCacheKeyIgnoredParams(String...)} are left out.
+     *
+     * @param resourcePathParams Map of values for filling into the skeleton resource path.
+     * @param urlQueryParams     Map of query params.
+     * @param encoding           Charset to encode the URL parameters in.
+     * @return Returns the cache key.
+     * @throws UnsupportedEncodingException Thrown when value cannot be encoded.
+     */
+    public String getCacheKey(Map<String, String> resourcePathParams, Map<String, String> urlQueryParams,
+                              String encoding) throws UnsupportedEncodingException {
+        if (mCanonicalBaseUrl == null) {
+            mCanonicalBaseUrl = UrlBuilder.canonicalizeBaseUrl(mBaseUrl);
+        }
+
+        if (urlQueryParams != null && !mCacheKeyIgnoredParams.isEmpty()) {
+            urlQueryParams = new HashMap<>(urlQueryParams);
+            urlQueryParams.keySet().removeAll(mCacheKeyIgnoredParams);
+        }
+
+        return new UrlBuilder(mCanonicalBaseUrl, mSkeletonResourcePath.length() + estimateQueryLength(urlQueryParams))
+                .appendPath(mResourcePathTemplate, resourcePathParams, encoding)
+                .appendQueryParameters(urlQueryParams, encoding, true)
+                .build();
+    }
+
+    /**
+     * Set query params that don't change the response, such as timestamps or tracking IDs,
+     * so that they're left out of the cache key.
+     *
+     * @param params Keys of the query params to leave out.
+     * @return Returns the updated {@link com.overturelabs.cannon.toolbox.ResourcePoint}.
+     */
+    public ResourcePoint<T> setCacheKeyIgnoredParams(String... params) {
+        mCacheKeyIgnoredParams = new HashSet<>(Arrays.asList(params));
+
+        return this;
+    }
+
+    /**
+     * Same as {@link #getUrl(java.util.Map, java.util.Map, String)}, with params as key/value pairs.
+     * Used by {@link com.overturelabs.cannon.toolbox.RequestBuilder}.
+     */
+    String getUrl(String[] resourcePathParams, int resourcePathParamCount,
+                  String[] urlQueryParams, int urlQueryParamCount, String encoding) throws UnsupportedEncodingException {
+        return new UrlBuilder(mBaseUrl, mSkeletonResourcePath.length() + urlQueryParamCount * 24)
+                .appendPath(mResourcePathTemplate, resourcePathParams, resourcePathParamCount, encoding)
+                .appendQueryParameters(urlQueryParams, urlQueryParamCount, encoding, false)
+                .build();
+    }
+
+    /**
+     * Same as {@link #getCacheKey(java.util.Map, java.util.Map, String)}, with params as key/value pairs.
+     * Used by {@link com.overturelabs.cannon.toolbox.RequestBuilder}.
+     */
+    String getCacheKey(String[] resourcePathParams, int resourcePathParamCount,
+                       String[] urlQueryParams, int urlQueryParamCount, String encoding) throws UnsupportedEncodingException {
+        if (mCanonicalBaseUrl == null) {
+            mCanonicalBaseUrl = UrlBuilder.canonicalizeBaseUrl(mBaseUrl);
+        }
+
+        if (urlQueryParamCount > 0 && !mCacheKeyIgnoredParams.isEmpty()) {
+            String[] keptParams = new String[urlQueryParamCount * 2];
+            int keptCount = 0;
+            for (int i = 0; i < urlQueryParamCount; i++) {
+                if (!mCacheKeyIgnoredParams.contains(urlQueryParams[2 * i])) {
+                    keptParams[2 * keptCount] = urlQueryParams[2 * i];
+                    keptParams[2 * keptCount + 1] = urlQueryParams[2 * i + 1];
+                    keptCount++;
                 }
             }
+
+            urlQueryParams = keptParams;
+            urlQueryParamCount = keptCount;
+        }
+
+        return new UrlBuilder(mCanonicalBaseUrl, mSkeletonResourcePath.length() + urlQueryParamCount * 24)
+                .appendPath(mResourcePathTemplate, resourcePathParams, resourcePathParamCount, encoding)
+                .appendQueryParameters(urlQueryParams, urlQueryParamCount, encoding, true)
+                .build();
+    }
+
+    /**
+     * Set the authenticator for requests fired at this resource point, for backends with their own auth.
+     * Unless set, the authenticator registered for the base URL is used, or else the default one.
+     *
+     * @param authenticator {@link com.overturelabs.cannon.toolbox.CannonAuthenticator}.
+     * @return Returns the updated {@link com.overturelabs.cannon.toolbox.ResourcePoint}.
+     */
+    public ResourcePoint<T> setAuthenticator(CannonAuthenticator authenticator) {
+        mAuthenticator = authenticator;
+
+        return this;
+    }
+
+    /**
+     * @return Returns the authenticator set for this resource point, or null if there's none.
+     */
+    public CannonAuthenticator getAuthenticator() {
+        return mAuthenticator;
+    }
+
+    /**
+     * Set the limiter shared by all requests fired at this resource point, e.g. for background syncs
+     * that shouldn't slow down other requests.
+     *
+     * @param limiter {@link com.overturelabs.cannon.toolbox.BandwidthLimiter}, or null for no cap.
+     * @return Returns the updated {@link com.overturelabs.cannon.toolbox.ResourcePoint}.
+     */
+    public ResourcePoint<T> setBandwidthLimiter(BandwidthLimiter limiter) {
+        mBandwidthLimiter = limiter;
+
+        return this;
+    }
+
+    /**
+     * @return Returns the limiter set for this resource point, or null if there's none.
+     */
+    public BandwidthLimiter getBandwidthLimiter() {
+        return mBandwidthLimiter;
+    }
+
+    /**
+     * @return Returns a new {@link com.overturelabs.cannon.toolbox.RequestBuilder} for this resource point.
+     */
+    public RequestBuilder<T> newRequest() {
+        return new RequestBuilder<>(this);
+    }
+
+    private static int estimateQueryLength(Map<String, String> urlQueryParams) {
+        if (urlQueryParams == null) {
+            return 0;
+        }
+
+        int length = 0;
+        for (Map.Entry<String, String> entry : urlQueryParams.entrySet()) {
+            // Separators, plus a little extra for characters that need encoding.
+            length += 2 + (entry.getKey() != null ? entry.getKey().length() : 0)
+                    + (entry.getValue() != null ? entry.getValue().length() + 8 : 0);
         }
 
-        return url;
+        return length;
     }
 
     /**
@@ -318,4 +481,11 @@ public abstract class ResourcePoint<T> {
     public ResponseParser<T> getResponseParser() {
         return mResponseParser;
     }
+
+    /**
+     * @return Returns the parsed skeleton resource path.
+     */
+    public ResourcePathTemplate getResourcePathTemplate() {
+        return mResourcePathTemplate;
+    }
 }
@@ -0,0 +1,19 @@
+package com.overturelabs.cannon.toolbox;
+
+import com.squareup.okhttp.RequestBody;
+
+/**
+ * Request whose body is written straight to the connection, instead of being buffered into a
+ * byte array by {@link com.android.volley.Request#getBody()} first.
+ * {@link com.overturelabs.cannon.OkHttpStack} sends these bodies as they are, so that e.g. files
+ * are streamed from disk, and never held in memory as a whole.
+ */
+public interface StreamingRequest {
+    /**
+     * Returns the body to be sent. The body may be written more than once, as requests are retried,
+     * so it must be able to replay its content.
+     *
+     * @return Returns the {@link com.squareup.okhttp.RequestBody}, or null if there's none.
+     */
+    RequestBody getRequestBody();
+}
@@ -0,0 +1,23 @@
+package com.overturelabs.cannon.toolbox;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Request whose response body is read straight from the connection, instead of being buffered into
+ * {@link com.android.volley.NetworkResponse#data} first. {@link com.overturelabs.cannon.OkHttpStack}
+ * hands successful bodies of these requests to {@link #writeResponseBody(InputStream)}, so that
+ * e.g. large downloads are streamed to disk, and never held in memory as a whole.
+ * <br/>
+ * The response that is parsed afterwards has an empty body. Error responses are buffered as usual.
+ */
+public interface StreamingResponseRequest {
+    /**
+     * Consumes the response body, on the network thread. Called again if the request is retried,
+     * so anything kept from an earlier attempt must be replaced.
+     *
+     * @param body Response body. Closed by the caller.
+     * @throws IOException Thrown when the body can't be read or stored, which fails the attempt.
+     */
+    void writeResponseBody(InputStream body) throws IOException;
+}
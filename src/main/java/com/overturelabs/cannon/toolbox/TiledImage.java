@@ -0,0 +1,153 @@
+package com.overturelabs.cannon.toolbox;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+
+import com.overturelabs.cannon.TileLruCache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A very large image that is kept encoded on disk, and decoded one region at a time.
+ * <br/>
+ * Decoding is blocking, so {@link #getTile(int, int, int, int, int)} should be called
+ * from a background thread. It is safe to decode tiles from multiple threads.
+ */
+public class TiledImage {
+    private final File mFile;
+    private final BitmapRegionDecoder mDecoder;
+    private final TileLruCache mTileCache;
+
+    // Tiles are decoded under the read lock, so that they can be decoded in parallel, but never
+    // while the decoder is being recycled.
+    private final ReadWriteLock mLock = new ReentrantReadWriteLock();
+
+    /**
+     * Construct a {@link com.overturelabs.cannon.toolbox.TiledImage}.
+     *
+     * @param file      File containing the encoded image.
+     * @param tileCache {@link com.overturelabs.cannon.TileLruCache} for keeping decoded tiles.
+     * @throws IOException Thrown when the image format is not supported or the file cannot be read.
+     */
+    public TiledImage(File file, TileLruCache tileCache) throws IOException {
+        mFile = file;
+        mDecoder = BitmapRegionDecoder.newInstance(file.getAbsolutePath(), false);
+        mTileCache = tileCache;
+    }
+
+    /**
+     * @return Returns the width of the full image, in pixels.
+     */
+    public int getWidth() {
+        return mDecoder.getWidth();
+    }
+
+    /**
+     * @return Returns the height of the full image, in pixels.
+     */
+    public int getHeight() {
+        return mDecoder.getHeight();
+    }
+
+    /**
+     * Decodes a region of the image, or returns it from the tile cache if it was decoded before.
+     *
+     * @param left       Left edge of the region in full image pixels.
+     * @param top        Top edge of the region in full image pixels.
+     * @param right      Right edge of the region in full image pixels.
+     * @param bottom     Bottom edge of the region in full image pixels.
+     * @param sampleSize Sample level to decode at. Refer to {@link #calculateSampleSize(int, int, int, int)}.
+     * @return Returns the decoded tile, or null if the tile cannot be decoded.
+     */
+    public Bitmap getTile(int left, int top, int right, int bottom, int sampleSize) {
+        String key = getKeyPrefix() + sampleSize + '/' + left + ',' + top + ',' + right + ',' + bottom;
+
+        Bitmap tile = mTileCache.get(key);
+        if (tile != null) {
+            return tile;
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+
+        mLock.readLock().lock();
+        try {
+            if (mDecoder.isRecycled()) {
+                return null;
+            }
+
+            tile = mDecoder.decodeRegion(new Rect(left, top, right, bottom), options);
+
+            // Still under the lock, so that tiles of a recycled image don't end up in the cache.
+            if (tile != null) {
+                mTileCache.put(key, tile);
+            }
+        } catch (java.lang.OutOfMemoryError error) {
+            // Drop what we have and let the caller try again later.
+            mTileCache.evictAll();
+            return null;
+        } catch (IllegalArgumentException e) {
+            // Region is outside of the image.
+            return null;
+        } catch (IllegalStateException e) {
+            // Decoder was recycled by other means, nothing to decode anymore.
+            return null;
+        } finally {
+            mLock.readLock().unlock();
+        }
+
+        return tile;
+    }
+
+    /**
+     * Releases the decoder, evicts the tiles of this image from the tile cache, and deletes the
+     * encoded image from disk. The image cannot be used after it has been recycled. Waits for tiles
+     * that are being decoded.
+     */
+    public void recycle() {
+        mLock.writeLock().lock();
+        try {
+            mDecoder.recycle();
+        } finally {
+            mLock.writeLock().unlock();
+        }
+
+        mTileCache.evictAll(getKeyPrefix());
+        mFile.delete();
+    }
+
+    private String getKeyPrefix() {
+        return mFile.getName() + '/';
+    }
+
+    /**
+     * Calculates the largest power of two sample size that keeps a region at least
+     * as large as the size it will be displayed at.
+     *
+     * @param regionWidth  Width of the region in full image pixels.
+     * @param regionHeight Height of the region in full image pixels.
+     * @param targetWidth  Width the region will be displayed at.
+     * @param targetHeight Height the region will be displayed at.
+     * @return Returns the sample size to decode the region at.
+     */
+    public static int calculateSampleSize(int regionWidth, int regionHeight, int targetWidth, int targetHeight) {
+        int sampleSize = 1;
+
+        if (targetWidth <= 0 || targetHeight <= 0) {
+            return sampleSize;
+        }
+
+        while (regionWidth / (sampleSize * 2) >= targetWidth
+                && regionHeight / (sampleSize * 2) >= targetHeight) {
+            sampleSize *= 2;
+        }
+
+        return sampleSize;
+    }
+}
@@ -0,0 +1,141 @@
+package com.overturelabs.cannon.toolbox;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.toolbox.HttpHeaderParser;
+import com.overturelabs.cannon.TileLruCache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Request for a very large image that is written to disk as-is and
+ * delivered as a {@link com.overturelabs.cannon.toolbox.TiledImage},
+ * without ever decoding the full image into memory.
+ * <br/>
+ * The body is streamed from the connection to the file, so the encoded image isn't held in memory
+ * either. That takes a stack that supports {@link com.overturelabs.cannon.toolbox.StreamingResponseRequest},
+ * such as {@link com.overturelabs.cannon.OkHttpStack}.
+ * <br/>
+ * The encoded image is already kept on disk by the {@link com.overturelabs.cannon.toolbox.TiledImage},
+ * so this request skips the HTTP cache.
+ */
+public class TiledImageRequest extends Request<TiledImage> implements StreamingResponseRequest {
+    private static final String TILE_FILE_PREFIX = "tiled";
+    private static final String TILE_FILE_SUFFIX = ".img";
+    private static final int BUFFER_SIZE = 8192;
+
+    private final File mDirectory;
+    private final TileLruCache mTileCache;
+    private final Response.Listener<TiledImage> mListener;
+
+    // Written on the network thread, and read on the same thread when the response is parsed.
+    private File mFile;
+
+    /**
+     * Construct a {@link com.overturelabs.cannon.toolbox.TiledImageRequest}.
+     *
+     * @param url             Image URL.
+     * @param directory       Directory to keep the encoded image in.
+     * @param tileCache       {@link com.overturelabs.cannon.TileLruCache} for keeping decoded tiles.
+     * @param successListener Success {@link com.android.volley.Response.Listener}.
+     * @param errorListener   {@link com.android.volley.Response.ErrorListener}.
+     */
+    public TiledImageRequest(String url, File directory, TileLruCache tileCache,
+                             Response.Listener<TiledImage> successListener,
+                             Response.ErrorListener errorListener) {
+        super(Method.GET, url, errorListener);
+
+        mDirectory = directory;
+        mTileCache = tileCache;
+        mListener = successListener;
+
+        setShouldCache(false);
+    }
+
+    @Override
+    public Priority getPriority() {
+        return Priority.LOW;
+    }
+
+    /**
+     * Writes the encoded image to a new file in the directory, a buffer at a time.
+     */
+    @Override
+    public void writeResponseBody(InputStream body) throws IOException {
+        discardFile();
+
+        if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+            throw new IOException("Unable to create " + mDirectory);
+        }
+
+        File file = File.createTempFile(TILE_FILE_PREFIX, TILE_FILE_SUFFIX, mDirectory);
+        FileOutputStream outputStream = new FileOutputStream(file);
+
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = body.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, count);
+            }
+            outputStream.close();
+            outputStream = null;
+
+            mFile = file;
+            file = null;
+        } finally {
+            if (outputStream != null) {
+                try {
+                    outputStream.close();
+                } catch (IOException e) {
+                    // Ignore, we are already failing.
+                }
+            }
+            if (file != null) {
+                file.delete();
+            }
+        }
+    }
+
+    @Override
+    protected Response<TiledImage> parseNetworkResponse(NetworkResponse response) {
+        File file = mFile;
+        mFile = null;
+
+        if (file == null) {
+            // The stack didn't stream the body, e.g. because it isn't an OkHttpStack.
+            return Response.error(new ParseError(new IOException("Response body was not streamed to disk.")));
+        }
+
+        try {
+            return Response.success(new TiledImage(file, mTileCache),
+                    HttpHeaderParser.parseCacheHeaders(response));
+        } catch (IOException e) {
+            // Not an image the region decoder understands.
+            file.delete();
+
+            return Response.error(new ParseError(e));
+        }
+    }
+
+    /**
+     * Deletes the file of an earlier attempt, which was never parsed.
+     */
+    private void discardFile() {
+        File file = mFile;
+        mFile = null;
+
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    @Override
+    protected void deliverResponse(TiledImage response) {
+        mListener.onResponse(response);
+    }
+}
@@ -0,0 +1,355 @@
+package com.overturelabs.cannon.toolbox;
+
+import android.util.LruCache;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Builds a URL into a single pre-sized buffer.
+ * <br/>
+ * Keys and values are encoded the same way {@link java.net.URLEncoder} does. UTF-8, the charset
+ * nearly every request uses, is encoded by hand straight into the buffer, and encodings of short
+ * strings, which tend to repeat from request to request, are cached. Other charsets go through
+ * {@link java.net.URLEncoder}.
+ */
+public class UrlBuilder {
+    private static final String UTF_8 = "UTF-8";
+    private static final int ENCODING_CACHE_SIZE = 512;   // Number of entries
+    private static final int MAX_CACHED_LENGTH = 32;      // Longer strings are unlikely to repeat
+    private static final int EXPECTED_PARAM_LENGTH = 24;  // Key and value, including separators
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private static final boolean[] UNRESERVED = new boolean[128];
+    static {
+        for (char c = 'a'; c <= 'z'; c++) UNRESERVED[c] = true;
+        for (char c = 'A'; c <= 'Z'; c++) UNRESERVED[c] = true;
+        for (char c = '0'; c <= '9'; c++) UNRESERVED[c] = true;
+        UNRESERVED['.'] = true;
+        UNRESERVED['-'] = true;
+        UNRESERVED['*'] = true;
+        UNRESERVED['_'] = true;
+    }
+
+    private static final LruCache<String, String> sEncodingCache = new LruCache<>(ENCODING_CACHE_SIZE);
+
+    private final StringBuilder mBuilder;
+    private boolean mHasQuery;
+
+    /**
+     * Construct a {@link com.overturelabs.cannon.toolbox.UrlBuilder}.
+     *
+     * @param baseUrl        Base URL, which is appended as-is.
+     * @param expectedLength Expected number of characters that will be appended after the base URL.
+     */
+    public UrlBuilder(String baseUrl, int expectedLength) {
+        mBuilder = new StringBuilder(baseUrl.length() + expectedLength);
+        mBuilder.append(baseUrl);
+        mHasQuery = baseUrl.indexOf('?') != -1;
+    }
+
+    public UrlBuilder(String baseUrl) {
+        this(baseUrl, EXPECTED_PARAM_LENGTH);
+    }
+
+    /**
+     * Appends a resource path.
+     *
+     * @param resourcePathTemplate Parsed skeleton resource path.
+     * @param params               Parameters for filling into the placeholders.
+     * @param encoding             Charset to encode the parameters in.
+     * @return Returns this {@link com.overturelabs.cannon.toolbox.UrlBuilder}.
+     * @throws UnsupportedEncodingException Thrown when value cannot be encoded.
+     */
+    public UrlBuilder appendPath(ResourcePathTemplate resourcePathTemplate, Map<String, String> params,
+                                 String encoding) throws UnsupportedEncodingException {
+        resourcePathTemplate.appendTo(mBuilder, params, encoding);
+
+        return this;
+    }
+
+    /**
+     * Appends a resource path.
+     *
+     * @param resourcePathTemplate Parsed skeleton resource path.
+     * @param params               Parameters for filling into the placeholders, as key/value pairs.
+     * @param pairCount            Number of key/value pairs in use.
+     * @param encoding             Charset to encode the parameters in.
+     * @return Returns this {@link com.overturelabs.cannon.toolbox.UrlBuilder}.
+     * @throws UnsupportedEncodingException Thrown when value cannot be encoded.
+     */
+    public UrlBuilder appendPath(ResourcePathTemplate resourcePathTemplate, String[] params, int pairCount,
+                                 String encoding) throws UnsupportedEncodingException {
+        resourcePathTemplate.appendTo(mBuilder, params, pairCount, encoding);
+
+        return this;
+    }
+
+    /**
+     * Appends a query parameter. A <code>null</code> value is sent as an empty one.
+     *
+     * @param key      Query parameter key.
+     * @param value    Query parameter value.
+     * @param encoding Charset to encode the key and value in.
+     * @return Returns this {@link com.overturelabs.cannon.toolbox.UrlBuilder}.
+     * @throws UnsupportedEncodingException Thrown when value cannot be encoded.
+     */
+    public UrlBuilder appendQueryParameter(String key, String value, String encoding) throws UnsupportedEncodingException {
+        mBuilder.append(mHasQuery ? '&' : '?');
+        mHasQuery = true;
+
+        appendEncoded(mBuilder, key, encoding);
+        mBuilder.append('=');
+        if (value != null) {
+            appendEncoded(mBuilder, value, encoding);
+        }
+
+        return this;
+    }
+
+    /**
+     * Appends query parameters. Parameters with a <code>null</code> key are left out.
+     *
+     * @param params   Query parameters.
+     * @param encoding Charset to encode the keys and values in.
+     * @param isSorted Whether to append the parameters sorted by key, which gives the same query
+     *                 string for the same parameters regardless of map ordering.
+     * @return Returns this {@link com.overturelabs.cannon.toolbox.UrlBuilder}.
+     * @throws UnsupportedEncodingException Thrown when value cannot be encoded.
+     */
+    public UrlBuilder appendQueryParameters(Map<String, String> params, String encoding, boolean isSorted)
+            throws UnsupportedEncodingException {
+        if (params == null || params.isEmpty()) {
+            return this;
+        }
+
+        mBuilder.ensureCapacity(mBuilder.length() + params.size() * EXPECTED_PARAM_LENGTH);
+
+        if (isSorted) {
+            String[] keys = new String[params.size()];
+            int count = 0;
+            for (String key : params.keySet()) {
+                if (key != null) {
+                    keys[count++] = key;
+                }
+            }
+            Arrays.sort(keys, 0, count);
+
+            for (int i = 0; i < count; i++) {
+                appendQueryParameter(keys[i], params.get(keys[i]), encoding);
+            }
+        } else {
+            for (Map.Entry<String, String> entry : params.entrySet()) {
+                if (entry.getKey() != null) {
+                    appendQueryParameter(entry.getKey(), entry.getValue(), encoding);
+                }
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Appends query parameters given as key/value pairs, i.e. <code>{ key0, value0, key1, value1, ... }</code>.
+     * Keys may repeat. Parameters with a <code>null</code> key are left out.
+     *
+     * @param params    Query parameters, as key/value pairs.
+     * @param pairCount Number of key/value pairs in use.
+     * @param encoding  Charset to encode the keys and values in.
+     * @param isSorted  Whether to append the parameters sorted by key. Parameters with the same key
+     *                  keep their order.
+     * @return Returns this {@link com.overturelabs.cannon.toolbox.UrlBuilder}.
+     * @throws UnsupportedEncodingException Thrown when value cannot be encoded.
+     */
+    public UrlBuilder appendQueryParameters(String[] params, int pairCount, String encoding, boolean isSorted)
+            throws UnsupportedEncodingException {
+        if (pairCount == 0) {
+            return this;
+        }
+
+        mBuilder.ensureCapacity(mBuilder.length() + pairCount * EXPECTED_PARAM_LENGTH);
+
+        if (!isSorted) {
+            for (int i = 0; i < pairCount; i++) {
+                if (params[2 * i] != null) {
+                    appendQueryParameter(params[2 * i], params[2 * i + 1], encoding);
+                }
+            }
+            return this;
+        }
+
+        // Stable insertion sort of the pair indices, there are only ever a handful of parameters.
+        int[] order = new int[pairCount];
+        int count = 0;
+        for (int i = 0; i < pairCount; i++) {
+            String key = params[2 * i];
+            if (key == null) {
+                continue;
+            }
+
+            int j = count++;
+            while (j > 0 && params[2 * order[j - 1]].compareTo(key) > 0) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = i;
+        }
+
+        for (int i = 0; i < count; i++) {
+            appendQueryParameter(params[2 * order[i]], params[2 * order[i] + 1], encoding);
+        }
+
+        return this;
+    }
+
+    /**
+     * @return Returns the URL.
+     */
+    public String build() {
+        return mBuilder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return build();
+    }
+
+    /**
+     * Normalises a base URL so that equivalent spellings compare equal: the scheme and host are
+     * lower-cased and default ports are dropped. Everything after the host is left alone.
+     *
+     * @param baseUrl Base URL, e.g. <code>HTTPS://API.Example.com:443/v1</code>.
+     * @return Returns the normalised base URL, e.g. <code>https://api.example.com/v1</code>.
+     */
+    public static String canonicalizeBaseUrl(String baseUrl) {
+        int schemeEnd = baseUrl.indexOf("://");
+        if (schemeEnd == -1) {
+            return baseUrl;
+        }
+
+        int hostStart = schemeEnd + 3;
+        int hostEnd = hostStart;
+        while (hostEnd < baseUrl.length() && "/?#".indexOf(baseUrl.charAt(hostEnd)) == -1) {
+            hostEnd++;
+        }
+
+        String scheme = baseUrl.substring(0, schemeEnd).toLowerCase(Locale.US);
+        String host = baseUrl.substring(hostStart, hostEnd);
+
+        // User info is case sensitive, only the host itself isn't.
+        int userInfoEnd = host.lastIndexOf('@') + 1;
+        host = host.substring(0, userInfoEnd) + host.substring(userInfoEnd).toLowerCase(Locale.US);
+
+        if (("http".equals(scheme) && host.endsWith(":80"))
+                || ("https".equals(scheme) && host.endsWith(":443"))) {
+            host = host.substring(0, host.lastIndexOf(':'));
+        }
+
+        return scheme + "://" + host + baseUrl.substring(hostEnd);
+    }
+
+    /**
+     * Encodes a string the same way {@link java.net.URLEncoder#encode(String, String)} does.
+     *
+     * @param string   String to encode.
+     * @param encoding Charset to encode the string in.
+     * @return Returns the encoded string.
+     * @throws UnsupportedEncodingException Thrown when value cannot be encoded.
+     */
+    public static String encode(String string, String encoding) throws UnsupportedEncodingException {
+        if (isUnreserved(string)) {
+            return string;
+        }
+
+        StringBuilder builder = new StringBuilder(string.length() * 3);
+        appendEncoded(builder, string, encoding);
+
+        return builder.toString();
+    }
+
+    /**
+     * Appends a string encoded the same way {@link java.net.URLEncoder#encode(String, String)} does.
+     *
+     * @param builder  {@link java.lang.StringBuilder} to append to.
+     * @param string   String to encode.
+     * @param encoding Charset to encode the string in.
+     * @throws UnsupportedEncodingException Thrown when value cannot be encoded.
+     */
+    public static void appendEncoded(StringBuilder builder, String string, String encoding)
+            throws UnsupportedEncodingException {
+        if (isUnreserved(string)) {
+            builder.append(string);
+            return;
+        }
+
+        if (!UTF_8.equalsIgnoreCase(encoding)) {
+            builder.append(URLEncoder.encode(string, encoding));
+            return;
+        }
+
+        if (string.length() > MAX_CACHED_LENGTH) {
+            appendUtf8Encoded(builder, string);
+            return;
+        }
+
+        String encoded = sEncodingCache.get(string);
+        if (encoded == null) {
+            int start = builder.length();
+            appendUtf8Encoded(builder, string);
+            sEncodingCache.put(string, builder.substring(start));
+        } else {
+            builder.append(encoded);
+        }
+    }
+
+    private static boolean isUnreserved(String string) {
+        for (int i = 0, length = string.length(); i < length; i++) {
+            char c = string.charAt(i);
+            if (c >= 128 || !UNRESERVED[c]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static void appendUtf8Encoded(StringBuilder builder, String string) {
+        for (int i = 0, length = string.length(); i < length; i++) {
+            char c = string.charAt(i);
+
+            if (c < 128 && UNRESERVED[c]) {
+                builder.append(c);
+            } else if (c == ' ') {
+                builder.append('+');
+            } else if (c < 0x80) {
+                appendHex(builder, c);
+            } else if (c < 0x800) {
+                appendHex(builder, 0xc0 | (c >> 6));
+                appendHex(builder, 0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(string.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, string.charAt(++i));
+                appendHex(builder, 0xf0 | (codePoint >> 18));
+                appendHex(builder, 0x80 | ((codePoint >> 12) & 0x3f));
+                appendHex(builder, 0x80 | ((codePoint >> 6) & 0x3f));
+                appendHex(builder, 0x80 | (codePoint & 0x3f));
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                // Unpaired surrogate, which the charset encoder replaces with '?'.
+                appendHex(builder, '?');
+            } else {
+                appendHex(builder, 0xe0 | (c >> 12));
+                appendHex(builder, 0x80 | ((c >> 6) & 0x3f));
+                appendHex(builder, 0x80 | (c & 0x3f));
+            }
+        }
+    }
+
+    private static void appendHex(StringBuilder builder, int b) {
+        builder.append('%')
+                .append(HEX_DIGITS[(b >> 4) & 0x0f])
+                .append(HEX_DIGITS[b & 0x0f]);
+    }
+}
@@ -0,0 +1,28 @@
+package com.overturelabs.cannon.toolbox.client;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method of a {@link ResourceClient} interface as an API endpoint.
+ * <br/>
+ * Every parameter of the method must be annotated with {@link Path}, {@link Param} or
+ * {@link Header}, except for the {@link com.android.volley.Response.Listener} and
+ * {@link com.android.volley.Response.ErrorListener}.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface Endpoint {
+    /**
+     * @return HTTP request method. Refer to {@link com.android.volley.Request.Method}. Defaults to {@code GET}.
+     */
+    int method() default 0;
+
+    /**
+     * @return Skeleton resource path, e.g. <code>/user/{{ userId }}</code>.
+     *         Refer to {@link com.overturelabs.cannon.toolbox.ResourcePoint#setSkeletonResourcePath(String)}.
+     */
+    String path();
+}
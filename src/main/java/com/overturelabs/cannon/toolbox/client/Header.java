@@ -0,0 +1,18 @@
+package com.overturelabs.cannon.toolbox.client;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Request header of an {@link Endpoint}. <code>null</code> values are left out.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.PARAMETER)
+public @interface Header {
+    /**
+     * @return Header name.
+     */
+    String value();
+}
@@ -0,0 +1,19 @@
+package com.overturelabs.cannon.toolbox.client;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Request param of an {@link Endpoint}. Params of {@code GET} requests are appended to the URL,
+ * params of any other request go into the request body. <code>null</code> values are left out.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.PARAMETER)
+public @interface Param {
+    /**
+     * @return Param key.
+     */
+    String value();
+}
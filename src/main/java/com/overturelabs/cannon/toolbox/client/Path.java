@@ -0,0 +1,18 @@
+package com.overturelabs.cannon.toolbox.client;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fills a placeholder in the skeleton resource path of an {@link Endpoint}.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.PARAMETER)
+public @interface Path {
+    /**
+     * @return Placeholder identifier.
+     */
+    String value();
+}
@@ -0,0 +1,36 @@
+package com.overturelabs.cannon.toolbox.client;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an interface for which the Cannon compiler generates a client, e.g.
+ * <pre>
+ * {@code
+ * @ResourceClient(baseUrl = "http://api.overturelabs.com")
+ * public interface UserClient {
+ *     @Endpoint(method = Request.Method.GET, path = "/user/{{ userId }}")
+ *     boolean getUser(@Path("userId") String userId, @Param("fields") String fields,
+ *                     Response.Listener<User> listener, Response.ErrorListener errorListener)
+ *             throws Cannon.NotLoadedException, UnsupportedEncodingException;
+ * }
+ * }
+ * </pre>
+ * The generated client is named <code>Cannon</code> followed by the interface name, e.g.
+ * <code>CannonUserClient</code>, and lives in the package of the interface. Every endpoint gets a
+ * {@link com.overturelabs.cannon.toolbox.ResourcePoint} with a skeleton path that was validated and
+ * split into segments at compile time, and a response parser for the model type of its listener.
+ * <br/>
+ * Endpoint methods returning <code>boolean</code> fire their request, methods returning
+ * {@link com.overturelabs.cannon.toolbox.GenericRequest} only build it.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface ResourceClient {
+    /**
+     * @return API base URL.
+     */
+    String baseUrl();
+}
@@ -0,0 +1,23 @@
+package com.overturelabs.cannon.toolbox.gson;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a model class for which the Cannon compiler generates a streaming
+ * {@link com.google.gson.TypeAdapter} at compile time, so that parsing it does not
+ * go through Gson's reflective adapters.
+ * <br/>
+ * Fields of annotated classes must not be private, and the class needs a non-private
+ * no-argument constructor. {@link com.google.gson.annotations.SerializedName} is honoured.
+ * <br/>
+ * Generated adapters are picked up automatically by
+ * {@link com.overturelabs.cannon.toolbox.gson.CannonModelTypeAdapterFactory}. If the compiler
+ * did not run, Gson falls back to its reflective adapter.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface CannonModel {
+}
@@ -0,0 +1,74 @@
+package com.overturelabs.cannon.toolbox.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link com.google.gson.TypeAdapterFactory} that hands out the type adapters generated
+ * by the Cannon compiler for classes annotated with {@link CannonModel}.
+ * <br/>
+ * Returns null for every other class, so Gson carries on with its own adapters.
+ */
+public class CannonModelTypeAdapterFactory implements TypeAdapterFactory {
+    /**
+     * Suffix of the generated adapter class name. Must match the Cannon compiler.
+     */
+    public static final String GENERATED_ADAPTER_SUFFIX = "$$CannonTypeAdapter";
+
+    /**
+     * Marks classes without a generated adapter, since {@link ConcurrentHashMap} doesn't take null values.
+     */
+    private static final Constructor<?> NO_ADAPTER = CannonModelTypeAdapterFactory.class.getConstructors()[0];
+
+    private final ConcurrentHashMap<Class<?>, Constructor<?>> mConstructors = new ConcurrentHashMap<>();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+
+        if (!rawType.isAnnotationPresent(CannonModel.class)) {
+            return null;
+        }
+
+        Constructor<?> constructor = mConstructors.get(rawType);
+        if (constructor == null) {
+            constructor = findConstructor(rawType);
+            mConstructors.putIfAbsent(rawType, constructor);
+        }
+
+        if (constructor == NO_ADAPTER) {
+            return null;
+        }
+
+        try {
+            return (TypeAdapter<T>) constructor.newInstance(gson);
+        } catch (InstantiationException e) {
+            throw new JsonIOException(e);
+        } catch (IllegalAccessException e) {
+            throw new JsonIOException(e);
+        } catch (InvocationTargetException e) {
+            throw new JsonIOException(e.getCause());
+        }
+    }
+
+    private static Constructor<?> findConstructor(Class<?> rawType) {
+        try {
+            Class<?> adapterClass = Class.forName(
+                    rawType.getName() + GENERATED_ADAPTER_SUFFIX, true, rawType.getClassLoader());
+            return adapterClass.getConstructor(Gson.class);
+        } catch (ClassNotFoundException e) {
+            // The compiler did not run for this class, fall back to reflection.
+            return NO_ADAPTER;
+        } catch (NoSuchMethodException e) {
+            return NO_ADAPTER;
+        }
+    }
+}
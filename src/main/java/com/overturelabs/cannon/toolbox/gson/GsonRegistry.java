@@ -0,0 +1,77 @@
+package com.overturelabs.cannon.toolbox.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapterFactory;
+import com.overturelabs.cannon.toolbox.gson.deserializers.DateDeserializer;
+
+import java.lang.reflect.Type;
+import java.util.Date;
+
+/**
+ * Process-wide {@link com.google.gson.Gson} instance shared by all
+ * {@link com.overturelabs.cannon.toolbox.parsers.GsonResponseParser}s, so that type adapters
+ * are only registered and warmed up once.
+ * <br/>
+ * Custom type adapters should be registered before the first response is parsed, e.g. right
+ * after loading Cannon. Registering an adapter later rebuilds the shared instance, which
+ * throws away its adapter cache.
+ * <br/>
+ * Adapters generated for {@link CannonModel} classes are registered by default.
+ */
+public class GsonRegistry {
+    private static final Object LOCK = new Object();
+
+    private static final GsonBuilder sGsonBuilder = new GsonBuilder()
+            .registerTypeAdapter(Date.class, new DateDeserializer())
+            .registerTypeAdapterFactory(new CannonModelTypeAdapterFactory());
+    private static volatile Gson sGson;
+
+    private GsonRegistry() {
+    }
+
+    /**
+     * @return Returns the shared {@link com.google.gson.Gson} instance.
+     */
+    public static Gson getGson() {
+        Gson gson = sGson;
+
+        if (gson == null) {
+            synchronized (LOCK) {
+                if (sGson == null) {
+                    sGson = sGsonBuilder.create();
+                }
+                gson = sGson;
+            }
+        }
+
+        return gson;
+    }
+
+    /**
+     * Registers a type adapter with the shared {@link com.google.gson.Gson} instance.
+     * Refer to {@link com.google.gson.GsonBuilder#registerTypeAdapter(java.lang.reflect.Type, Object)}.
+     *
+     * @param type        Type of the objects handled by the adapter.
+     * @param typeAdapter Type adapter, serializer, deserializer or instance creator.
+     */
+    public static void registerTypeAdapter(Type type, Object typeAdapter) {
+        synchronized (LOCK) {
+            sGsonBuilder.registerTypeAdapter(type, typeAdapter);
+            sGson = null;
+        }
+    }
+
+    /**
+     * Registers a type adapter factory with the shared {@link com.google.gson.Gson} instance.
+     * Refer to {@link com.google.gson.GsonBuilder#registerTypeAdapterFactory(com.google.gson.TypeAdapterFactory)}.
+     *
+     * @param factory Type adapter factory.
+     */
+    public static void registerTypeAdapterFactory(TypeAdapterFactory factory) {
+        synchronized (LOCK) {
+            sGsonBuilder.registerTypeAdapterFactory(factory);
+            sGson = null;
+        }
+    }
+}
@@ -4,9 +4,7 @@ import android.util.Log;
 
 import java.lang.reflect.Type;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.TimeZone;
 
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonDeserializer;
@@ -15,25 +13,182 @@ import com.google.gson.JsonParseException;
 import com.overturelabs.Cannon;
 
 /**
- * Deserializer for parsing Date strings and converting them to the timezone of current locale.
+ * Deserializer for parsing ISO-8601 date strings, such as the MongoDB UTC format
+ * <code>yyyy-MM-dd'T'HH:mm:ss.SSS'Z'</code>.
+ * <br/>
+ * Supported variants are:
+ * <ul>
+ *     <li>Fractional seconds of any precision, or none at all. Only milliseconds are kept.</li>
+ *     <li>UTC offsets in the form of <code>Z</code>, <code>+hh:mm</code>, <code>+hhmm</code> or <code>+hh</code>.
+ *     Dates without an offset are taken to be in UTC.</li>
+ * </ul>
+ * The parser is stateless, so a single instance can be shared across threads, and it doesn't
+ * allocate anything but the resulting {@link java.util.Date}.
  *
  * @author Steve Tan
  */
 public class DateDeserializer implements JsonDeserializer<Date> {
-    private static final String MONGODB_UTC_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
+    private static final long MILLIS_PER_SECOND = 1000L;
+    private static final long MILLIS_PER_MINUTE = 60 * MILLIS_PER_SECOND;
+    private static final long MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+    private static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
 
     @Override
     public Date deserialize(JsonElement element, Type type, JsonDeserializationContext jsonDeserializationContext) throws JsonParseException {
         try {
-            String dateString = element.getAsString();
-
-            SimpleDateFormat formatter = new SimpleDateFormat(MONGODB_UTC_FORMAT);
-            formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
-
-            return formatter.parse(dateString);
+            return new Date(parse(element.getAsString()));
         } catch (ParseException e) {
-            Log.e(Cannon.TAG, "Unable to parse date. (" + e.getMessage() + ")");
+            if (Log.isLoggable(Cannon.TAG, Log.DEBUG)) {
+                Log.d(Cannon.TAG, "Unable to parse date. (" + e.getMessage() + ")");
+            }
             return null;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Parses an ISO-8601 date string.
+     *
+     * @param date Date string, e.g. <code>2015-04-01T12:30:00.000Z</code>.
+     * @return Returns the number of milliseconds since the epoch.
+     * @throws ParseException Thrown when the string is not a supported ISO-8601 date.
+     */
+    public static long parse(String date) throws ParseException {
+        final int length = date.length();
+
+        // yyyy-MM-dd'T'HH:mm:ss is the shortest form we accept.
+        if (length < 19
+                || date.charAt(4) != '-' || date.charAt(7) != '-'
+                || (date.charAt(10) != 'T' && date.charAt(10) != 't' && date.charAt(10) != ' ')
+                || date.charAt(13) != ':' || date.charAt(16) != ':') {
+            throw new ParseException("Unparseable date: \"" + date + "\"", 0);
+        }
+
+        int year = parseDigits(date, 0, 4);
+        int month = parseDigits(date, 5, 7);
+        int day = parseDigits(date, 8, 10);
+        int hour = parseDigits(date, 11, 13);
+        int minute = parseDigits(date, 14, 16);
+        int second = parseDigits(date, 17, 19);
+
+        if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hour > 23 || minute > 59 || second > 60) {
+            throw new ParseException("Unparseable date: \"" + date + "\"", 0);
+        }
+
+        int position = 19;
+
+        // Fractional seconds, of which we keep the milliseconds.
+        int millis = 0;
+        if (position < length && (date.charAt(position) == '.' || date.charAt(position) == ',')) {
+            int start = ++position;
+            while (position < length && isDigit(date.charAt(position))) {
+                if (position - start < 3) {
+                    millis = millis * 10 + (date.charAt(position) - '0');
+                }
+                position++;
+            }
+
+            if (position == start) {
+                throw new ParseException("Unparseable date: \"" + date + "\"", position);
+            }
+            for (int digits = position - start; digits < 3; digits++) {
+                millis *= 10;
+            }
+        }
+
+        // UTC offset.
+        long offsetMillis = 0;
+        if (position < length) {
+            char sign = date.charAt(position);
+
+            if (sign == 'Z' || sign == 'z') {
+                position++;
+            } else if (sign == '+' || sign == '-') {
+                int offsetHour = parseDigits(date, position + 1, position + 3);
+                int offsetMinute = 0;
+                position += 3;
+
+                if (position < length) {
+                    if (date.charAt(position) == ':') {
+                        position++;
+                    }
+                    offsetMinute = parseDigits(date, position, position + 2);
+                    position += 2;
+                }
+
+                if (offsetHour > 23 || offsetMinute > 59) {
+                    throw new ParseException("Unparseable date: \"" + date + "\"", position);
+                }
+
+                offsetMillis = offsetHour * MILLIS_PER_HOUR + offsetMinute * MILLIS_PER_MINUTE;
+                if (sign == '-') {
+                    offsetMillis = -offsetMillis;
+                }
+            }
+        }
+
+        if (position != length) {
+            throw new ParseException("Unparseable date: \"" + date + "\"", position);
+        }
+
+        return daysSinceEpoch(year, month, day) * MILLIS_PER_DAY
+                + hour * MILLIS_PER_HOUR
+                + minute * MILLIS_PER_MINUTE
+                + second * MILLIS_PER_SECOND
+                + millis
+                - offsetMillis;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int parseDigits(String date, int start, int end) throws ParseException {
+        if (end > date.length()) {
+            throw new ParseException("Unparseable date: \"" + date + "\"", start);
+        }
+
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = date.charAt(i);
+            if (!isDigit(c)) {
+                throw new ParseException("Unparseable date: \"" + date + "\"", i);
+            }
+            value = value * 10 + (c - '0');
+        }
+
+        return value;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean isLeapYear = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return isLeapYear ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Days from 1970-01-01 to the given date in the proleptic Gregorian calendar.
+     * Based on Howard Hinnant's days_from_civil algorithm.
+     */
+    private static long daysSinceEpoch(int year, int month, int day) {
+        if (month <= 2) {
+            year--;
+        }
+
+        long era = (year >= 0 ? year : year - 399) / 400;
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+
+        return era * 146097 + dayOfEra - 719468;
+    }
+}
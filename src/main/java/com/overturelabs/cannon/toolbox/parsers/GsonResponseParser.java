@@ -5,44 +5,84 @@ import com.android.volley.ParseError;
 import com.android.volley.Response;
 import com.android.volley.toolbox.HttpHeaderParser;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonSyntaxException;
-import com.overturelabs.cannon.toolbox.gson.deserializers.DateDeserializer;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.overturelabs.cannon.toolbox.gson.GsonRegistry;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
-import java.util.Date;
+import java.lang.reflect.Type;
 
 /**
  * {@link ResponseParser} for {@link com.google.gson.Gson} objects.
+ * <br/>
+ * The response body is streamed through a {@link com.google.gson.stream.JsonReader}
+ * straight from the response bytes, without building an intermediate {@link java.lang.String}.
+ * <br/>
+ * Unless a {@link com.google.gson.Gson} instance is provided, the shared instance from
+ * {@link com.overturelabs.cannon.toolbox.gson.GsonRegistry} is used.
  *
  * @param <T> Expected class of response object.
  * @author Steve Tan
  */
 public class GsonResponseParser<T> implements ResponseParser<T> {
     private Gson mGson;
-    private Class<T> mClassOfT;
+    private Type mTypeOfT;
 
     public GsonResponseParser(Class<T> classOfT) {
-        GsonBuilder gsonBuilder = new GsonBuilder();
-        gsonBuilder.registerTypeAdapter(Date.class, new DateDeserializer());
+        mTypeOfT = classOfT;
+    }
+
+    /**
+     * Construct a parser for a generic type, e.g. {@code new TypeToken<List<User>>() {}}.
+     *
+     * @param typeToken {@link com.google.gson.reflect.TypeToken} of the response object.
+     */
+    public GsonResponseParser(TypeToken<T> typeToken) {
+        mTypeOfT = typeToken.getType();
+    }
 
-        mGson = gsonBuilder.create();
-        mClassOfT = classOfT;
+    /**
+     * Construct a parser that uses its own {@link com.google.gson.Gson} instance
+     * instead of the shared one.
+     *
+     * @param typeOfT Type of the response object.
+     * @param gson    {@link com.google.gson.Gson} instance to parse with.
+     */
+    public GsonResponseParser(Type typeOfT, Gson gson) {
+        mTypeOfT = typeOfT;
+        mGson = gson;
     }
 
     @Override
     public Response<T> parseNetworkResponse(NetworkResponse response) {
         try {
-            String json = new String(
-                    response.data,
-                    HttpHeaderParser.parseCharset(response.headers));
-            return Response.success(
-                    mGson.fromJson(json, mClassOfT),
-                    HttpHeaderParser.parseCacheHeaders(response));
+            JsonReader jsonReader = new JsonReader(new InputStreamReader(
+                    new ByteArrayInputStream(response.data),
+                    HttpHeaderParser.parseCharset(response.headers)));
+
+            Gson gson = mGson != null ? mGson : GsonRegistry.getGson();
+            T parsed = gson.fromJson(jsonReader, mTypeOfT);
+
+            // Same as parsing a string, anything after the document is an error.
+            if (parsed != null && jsonReader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("JSON document was not fully consumed.");
+            }
+
+            return Response.success(parsed, HttpHeaderParser.parseCacheHeaders(response));
         } catch (UnsupportedEncodingException e) {
             return Response.error(new ParseError(e));
         } catch (JsonSyntaxException e) {
             return Response.error(new ParseError(e));
+        } catch (JsonIOException e) {
+            return Response.error(new ParseError(e));
+        } catch (IOException e) {
+            return Response.error(new ParseError(e));
         }
     }
 }
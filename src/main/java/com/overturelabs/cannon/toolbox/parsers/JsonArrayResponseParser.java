@@ -12,6 +12,10 @@ import java.io.UnsupportedEncodingException;
 
 /**
  * {@link ResponseParser} for {@link org.json.JSONArray} responses.
+ * <br/>
+ * The whole array is held in memory before the listener sees it. For large arrays, use
+ * {@link com.overturelabs.cannon.toolbox.parsers.StreamingJsonArrayResponseParser} instead.
+ *
  * @author Steve Tan
  */
 public class JsonArrayResponseParser implements ResponseParser<JSONArray> {
@@ -0,0 +1,221 @@
+package com.overturelabs.cannon.toolbox.parsers;
+
+import android.util.Base64;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+
+/**
+ * Decodes <a href="https://github.com/msgpack/msgpack/blob/master/spec.md">MessagePack</a>
+ * into a {@link com.google.gson.JsonElement} tree, which can then be bound by
+ * {@link com.google.gson.Gson} like any JSON document.
+ * <br/>
+ * Binary values are turned into Base64 strings and map keys into strings, as JSON has no
+ * equivalent for either. Extension types are not supported.
+ */
+public class MessagePackDecoder {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int MAX_DEPTH = 256;
+    private static final BigInteger TWO_TO_THE_64 = BigInteger.ONE.shiftLeft(64);
+
+    private final byte[] mData;
+    private final int mLimit;
+    private int mPosition;
+
+    private MessagePackDecoder(byte[] data) {
+        mData = data;
+        mLimit = data.length;
+    }
+
+    /**
+     * Decodes a single MessagePack value.
+     *
+     * @param data MessagePack encoded bytes.
+     * @return Returns the decoded value.
+     * @throws IOException Thrown when the data is malformed, uses an extension type,
+     *                     or has trailing bytes after the value.
+     */
+    public static JsonElement decode(byte[] data) throws IOException {
+        MessagePackDecoder decoder = new MessagePackDecoder(data);
+        JsonElement element = decoder.readValue(0);
+
+        if (decoder.mPosition != decoder.mLimit) {
+            throw new IOException("Trailing bytes after MessagePack value at offset " + decoder.mPosition + ".");
+        }
+
+        return element;
+    }
+
+    private JsonElement readValue(int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("MessagePack value nested too deeply at offset " + mPosition + ".");
+        }
+
+        int b = readByte();
+
+        if (b <= 0x7f) {
+            return new JsonPrimitive(b); // positive fixint
+        } else if (b >= 0xe0) {
+            return new JsonPrimitive((byte) b); // negative fixint
+        } else if (b <= 0x8f) {
+            return readMap(b & 0x0f, depth);
+        } else if (b <= 0x9f) {
+            return readArray(b & 0x0f, depth);
+        } else if (b <= 0xbf) {
+            return new JsonPrimitive(readString(b & 0x1f));
+        }
+
+        switch (b) {
+            case 0xc0:
+                return JsonNull.INSTANCE;
+            case 0xc2:
+                return new JsonPrimitive(false);
+            case 0xc3:
+                return new JsonPrimitive(true);
+            case 0xc4:
+                return new JsonPrimitive(readBinary(readByte()));
+            case 0xc5:
+                return new JsonPrimitive(readBinary(readShort()));
+            case 0xc6:
+                return new JsonPrimitive(readBinary(readLength()));
+            case 0xca:
+                return new JsonPrimitive(Float.intBitsToFloat(readInt()));
+            case 0xcb:
+                return new JsonPrimitive(Double.longBitsToDouble(readLong()));
+            case 0xcc:
+                return new JsonPrimitive(readByte());
+            case 0xcd:
+                return new JsonPrimitive(readShort());
+            case 0xce:
+                return new JsonPrimitive(readInt() & 0xffffffffL);
+            case 0xcf:
+                long value = readLong();
+                if (value < 0) {
+                    // Doesn't fit in a long, uint 64 goes up to 2^64 - 1.
+                    return new JsonPrimitive(BigInteger.valueOf(value).add(TWO_TO_THE_64));
+                }
+                return new JsonPrimitive(value);
+            case 0xd0:
+                return new JsonPrimitive((byte) readByte());
+            case 0xd1:
+                return new JsonPrimitive((short) readShort());
+            case 0xd2:
+                return new JsonPrimitive(readInt());
+            case 0xd3:
+                return new JsonPrimitive(readLong());
+            case 0xd9:
+                return new JsonPrimitive(readString(readByte()));
+            case 0xda:
+                return new JsonPrimitive(readString(readShort()));
+            case 0xdb:
+                return new JsonPrimitive(readString(readLength()));
+            case 0xdc:
+                return readArray(readShort(), depth);
+            case 0xdd:
+                return readArray(readLength(), depth);
+            case 0xde:
+                return readMap(readShort(), depth);
+            case 0xdf:
+                return readMap(readLength(), depth);
+            default:
+                // 0xc1 is never used, 0xc7 - 0xc9 and 0xd4 - 0xd8 are extension types.
+                throw new IOException("Unsupported MessagePack type 0x" + Integer.toHexString(b)
+                        + " at offset " + (mPosition - 1) + ".");
+        }
+    }
+
+    private JsonArray readArray(int size, int depth) throws IOException {
+        // Every element takes at least a byte, don't trust the size any further than that.
+        ensureAvailable(size);
+
+        JsonArray array = new JsonArray();
+        for (int i = 0; i < size; i++) {
+            array.add(readValue(depth + 1));
+        }
+
+        return array;
+    }
+
+    private JsonObject readMap(int size, int depth) throws IOException {
+        ensureAvailable(size);
+
+        JsonObject object = new JsonObject();
+        for (int i = 0; i < size; i++) {
+            int keyOffset = mPosition;
+            JsonElement key = readValue(depth + 1);
+
+            if (!key.isJsonPrimitive() || key.getAsJsonPrimitive().isBoolean()) {
+                throw new IOException("Unsupported MessagePack map key at offset " + keyOffset + ".");
+            }
+
+            object.add(key.getAsString(), readValue(depth + 1));
+        }
+
+        return object;
+    }
+
+    private String readString(int length) throws IOException {
+        ensureAvailable(length);
+
+        String string = new String(mData, mPosition, length, UTF_8);
+        mPosition += length;
+
+        return string;
+    }
+
+    private String readBinary(int length) throws IOException {
+        ensureAvailable(length);
+
+        String string = Base64.encodeToString(mData, mPosition, length, Base64.NO_WRAP);
+        mPosition += length;
+
+        return string;
+    }
+
+    private int readByte() throws IOException {
+        ensureAvailable(1);
+        return mData[mPosition++] & 0xff;
+    }
+
+    private int readShort() throws IOException {
+        ensureAvailable(2);
+        return (mData[mPosition++] & 0xff) << 8
+                | (mData[mPosition++] & 0xff);
+    }
+
+    private int readInt() throws IOException {
+        ensureAvailable(4);
+        return (mData[mPosition++] & 0xff) << 24
+                | (mData[mPosition++] & 0xff) << 16
+                | (mData[mPosition++] & 0xff) << 8
+                | (mData[mPosition++] & 0xff);
+    }
+
+    private long readLong() throws IOException {
+        return (readInt() & 0xffffffffL) << 32 | (readInt() & 0xffffffffL);
+    }
+
+    private int readLength() throws IOException {
+        int length = readInt();
+
+        // A 32-bit length that doesn't fit in an int can't fit in the remaining data either.
+        if (length < 0) {
+            throw new IOException("MessagePack length out of range at offset " + (mPosition - 4) + ".");
+        }
+
+        return length;
+    }
+
+    private void ensureAvailable(int count) throws IOException {
+        if (count > mLimit - mPosition) {
+            throw new IOException("Unexpected end of MessagePack data at offset " + mPosition + ".");
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.overturelabs.cannon.toolbox.parsers;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Response;
+import com.android.volley.toolbox.HttpHeaderParser;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import com.overturelabs.cannon.toolbox.gson.GsonRegistry;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * {@link NegotiableResponseParser} for <a href="http://msgpack.org/">MessagePack</a> responses,
+ * bound to objects with the shared {@link com.google.gson.Gson} instance from
+ * {@link com.overturelabs.cannon.toolbox.gson.GsonRegistry}. Type adapters, including generated
+ * ones, work the same as they do for JSON.
+ * <br/>
+ * MessagePack is preferred, but JSON is accepted as well. Responses that come back with a JSON
+ * <code>Content-Type</code> are handed to a {@link GsonResponseParser}, so endpoints can be moved
+ * over to MessagePack one at a time.
+ *
+ * @param <T> Expected class of response object.
+ */
+public class MessagePackResponseParser<T> implements NegotiableResponseParser<T> {
+    private static final String ACCEPT = "application/msgpack, application/x-msgpack, application/json;q=0.5";
+
+    private Type mTypeOfT;
+    private GsonResponseParser<T> mJsonResponseParser;
+
+    public MessagePackResponseParser(Class<T> classOfT) {
+        mTypeOfT = classOfT;
+        mJsonResponseParser = new GsonResponseParser<>(classOfT);
+    }
+
+    /**
+     * Construct a parser for a generic type, e.g. {@code new TypeToken<List<User>>() {}}.
+     *
+     * @param typeToken {@link com.google.gson.reflect.TypeToken} of the response object.
+     */
+    public MessagePackResponseParser(TypeToken<T> typeToken) {
+        mTypeOfT = typeToken.getType();
+        mJsonResponseParser = new GsonResponseParser<>(typeToken);
+    }
+
+    @Override
+    public String getAccept() {
+        return ACCEPT;
+    }
+
+    @Override
+    public Response<T> parseNetworkResponse(NetworkResponse response) {
+        if (isJson(response)) {
+            return mJsonResponseParser.parseNetworkResponse(response);
+        }
+
+        try {
+            JsonElement tree = MessagePackDecoder.decode(response.data);
+            T parsed = GsonRegistry.getGson().fromJson(tree, mTypeOfT);
+
+            return Response.success(parsed, HttpHeaderParser.parseCacheHeaders(response));
+        } catch (IOException e) {
+            return Response.error(new ParseError(e));
+        } catch (JsonSyntaxException e) {
+            return Response.error(new ParseError(e));
+        }
+    }
+
+    private static boolean isJson(NetworkResponse response) {
+        if (response.headers == null) {
+            return false;
+        }
+
+        String contentType = response.headers.get("Content-Type");
+        if (contentType == null) {
+            // Volley keeps headers in a case sensitive map.
+            contentType = response.headers.get("content-type");
+        }
+
+        return contentType != null && contentType.toLowerCase().contains("json");
+    }
+}
@@ -0,0 +1,18 @@
+package com.overturelabs.cannon.toolbox.parsers;
+
+/**
+ * {@link ResponseParser} that understands more than one response format.
+ * <br/>
+ * {@link com.overturelabs.cannon.toolbox.GenericRequest}s send the formats a negotiable parser
+ * accepts in the <code>Accept</code> header, unless the request already has one. Since a
+ * {@link com.overturelabs.cannon.toolbox.ResourcePoint} owns its parser, this makes content
+ * negotiation a per resource point choice.
+ */
+public interface NegotiableResponseParser<T> extends ResponseParser<T> {
+
+    /**
+     * @return Returns the value for the <code>Accept</code> header,
+     *         e.g. <code>application/msgpack, application/json;q=0.5</code>.
+     */
+    String getAccept();
+}
@@ -0,0 +1,181 @@
+package com.overturelabs.cannon.toolbox.parsers;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Response;
+import com.android.volley.toolbox.HttpHeaderParser;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.overturelabs.cannon.toolbox.gson.GsonRegistry;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link ResponseParser} that only keeps the parts of a JSON document a screen actually needs.
+ * <br/>
+ * Fields are selected with dotted paths such as <code>user.name</code> or <code>items.price</code>.
+ * Paths go straight through arrays, so <code>items.price</code> keeps the price of every item.
+ * Selecting a field keeps its whole value. Everything else is skipped token by token without
+ * being materialised, and the projected document is then bound to the response object with the
+ * shared {@link com.google.gson.Gson} instance from {@link com.overturelabs.cannon.toolbox.gson.GsonRegistry}.
+ * <br/>
+ * Note that binding to a slim model class with {@link GsonResponseParser} already skips unknown
+ * fields. This parser is for response objects that can't be slimmed down, such as maps,
+ * {@link com.google.gson.JsonElement} trees, or models shared with screens that need more.
+ *
+ * @param <T> Expected class of response object.
+ */
+public class ProjectionResponseParser<T> implements ResponseParser<T> {
+    private Type mTypeOfT;
+    private PathNode mRoot;
+
+    /**
+     * Construct a parser for a non-generic class.
+     *
+     * @param classOfT Class of the response object.
+     * @param paths    Dotted paths of the fields to keep.
+     */
+    public ProjectionResponseParser(Class<T> classOfT, String... paths) {
+        this((Type) classOfT, paths);
+    }
+
+    /**
+     * Construct a parser for a generic type, e.g. {@code new TypeToken<Map<String, Object>>() {}}.
+     *
+     * @param typeToken {@link com.google.gson.reflect.TypeToken} of the response object.
+     * @param paths     Dotted paths of the fields to keep.
+     */
+    public ProjectionResponseParser(TypeToken<T> typeToken, String... paths) {
+        this(typeToken.getType(), paths);
+    }
+
+    private ProjectionResponseParser(Type typeOfT, String... paths) {
+        if (paths.length == 0) {
+            throw new IllegalArgumentException("At least one path is required.");
+        }
+
+        mTypeOfT = typeOfT;
+        mRoot = new PathNode();
+
+        for (String path : paths) {
+            mRoot.add(path);
+        }
+    }
+
+    @Override
+    public Response<T> parseNetworkResponse(NetworkResponse response) {
+        try {
+            JsonReader jsonReader = new JsonReader(new InputStreamReader(
+                    new ByteArrayInputStream(response.data),
+                    HttpHeaderParser.parseCharset(response.headers)));
+
+            Gson gson = GsonRegistry.getGson();
+            JsonElement projection = project(jsonReader, mRoot, gson.getAdapter(JsonElement.class));
+
+            if (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("JSON document was not fully consumed.");
+            }
+
+            return Response.success(gson.<T>fromJson(projection, mTypeOfT),
+                    HttpHeaderParser.parseCacheHeaders(response));
+        } catch (UnsupportedEncodingException e) {
+            return Response.error(new ParseError(e));
+        } catch (JsonSyntaxException e) {
+            return Response.error(new ParseError(e));
+        } catch (JsonIOException e) {
+            return Response.error(new ParseError(e));
+        } catch (IOException e) {
+            return Response.error(new ParseError(e));
+        } catch (IllegalStateException e) {
+            // Thrown by JsonReader when the document is malformed.
+            return Response.error(new ParseError(e));
+        }
+    }
+
+    private static JsonElement project(JsonReader reader, PathNode node,
+                                       TypeAdapter<JsonElement> elementAdapter) throws IOException {
+        JsonToken token = reader.peek();
+
+        if (node.mIsSelected
+                || (token != JsonToken.BEGIN_OBJECT && token != JsonToken.BEGIN_ARRAY)) {
+            // Either the whole value was selected, or the path goes deeper than the document does.
+            return elementAdapter.read(reader);
+        }
+
+        if (token == JsonToken.BEGIN_ARRAY) {
+            JsonArray array = new JsonArray();
+
+            reader.beginArray();
+            while (reader.hasNext()) {
+                array.add(project(reader, node, elementAdapter));
+            }
+            reader.endArray();
+
+            return array;
+        }
+
+        JsonObject object = new JsonObject();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            PathNode child = node.mChildren.get(name);
+
+            if (child == null) {
+                reader.skipValue();
+            } else {
+                object.add(name, project(reader, child, elementAdapter));
+            }
+        }
+        reader.endObject();
+
+        return object;
+    }
+
+    /**
+     * Node of the path trie.
+     */
+    private static class PathNode {
+        private boolean mIsSelected;
+        private Map<String, PathNode> mChildren = new HashMap<>();
+
+        public void add(String path) {
+            PathNode node = this;
+
+            for (String name : path.split("\\.", -1)) {
+                if (name.length() == 0) {
+                    throw new IllegalArgumentException("Invalid path: \"" + path + "\"");
+                }
+                if (node.mIsSelected) {
+                    // A shorter path already selects the whole value.
+                    return;
+                }
+
+                PathNode child = node.mChildren.get(name);
+                if (child == null) {
+                    child = new PathNode();
+                    node.mChildren.put(name, child);
+                }
+                node = child;
+            }
+
+            // This path selects the whole value, which covers any longer paths below it.
+            node.mIsSelected = true;
+            node.mChildren.clear();
+        }
+    }
+}
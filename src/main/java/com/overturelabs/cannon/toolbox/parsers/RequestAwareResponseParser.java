@@ -0,0 +1,19 @@
+package com.overturelabs.cannon.toolbox.parsers;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.Response;
+import com.overturelabs.cannon.toolbox.GenericRequest;
+
+/**
+ * {@link ResponseParser} that needs to know which request it's parsing the response of, e.g. to
+ * deliver partial results to a listener bound to that request. Parsers are shared by all requests
+ * to a {@link com.overturelabs.cannon.toolbox.ResourcePoint}, so per request state belongs on the request.
+ * <br/>
+ * {@link com.overturelabs.cannon.toolbox.GenericRequest} calls
+ * {@link #parseNetworkResponse(GenericRequest, NetworkResponse)} instead of
+ * {@link #parseNetworkResponse(NetworkResponse)}.
+ */
+public interface RequestAwareResponseParser<T> extends ResponseParser<T> {
+
+    Response<T> parseNetworkResponse(GenericRequest<T> request, NetworkResponse response);
+}
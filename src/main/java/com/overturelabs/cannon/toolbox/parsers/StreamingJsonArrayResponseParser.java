@@ -0,0 +1,187 @@
+package com.overturelabs.cannon.toolbox.parsers;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Response;
+import com.android.volley.toolbox.HttpHeaderParser;
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.overturelabs.cannon.toolbox.GenericRequest;
+import com.overturelabs.cannon.toolbox.gson.GsonRegistry;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ResponseParser} for large JSON array responses.
+ * <br/>
+ * Unlike {@link com.overturelabs.cannon.toolbox.parsers.JsonArrayResponseParser}, the array is
+ * never materialised. Elements are parsed one at a time and handed to the {@link BatchListener}
+ * of the request on the main thread as soon as a batch is full, so the first rows show up long
+ * before the last ones are parsed. Use {@link com.google.gson.JsonElement} as the element type
+ * to get untyped elements.
+ * <br/>
+ * The listener is bound to the request with
+ * {@link com.overturelabs.cannon.toolbox.GenericRequest#setBatchListener(BatchListener)}, so a single
+ * parser can be shared by all requests to a resource point. Batches of canceled requests are dropped.
+ * <br/>
+ * The response itself carries the total number of elements, and is delivered after the last batch.
+ * Should the body turn out to be malformed halfway through, the batches before it will already
+ * have been delivered when the error is.
+ * <br/>
+ * A soft expired cache entry is delivered before it's refreshed, and the refreshed response
+ * is delivered again after it. Only the batches of the first response are posted, so the
+ * listener never sees the same rows twice. The refreshed count still reaches the response listener.
+ *
+ * @param <E> Expected class of the array elements.
+ */
+public class StreamingJsonArrayResponseParser<E> implements RequestAwareResponseParser<Integer> {
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+
+    private Type mTypeOfE;
+    private int mBatchSize;
+
+    /**
+     * Listener for batches of parsed array elements.
+     *
+     * @param <E> Class of the array elements.
+     */
+    public interface BatchListener<E> {
+        /**
+         * Called on the main thread with the next batch of elements, in array order.
+         *
+         * @param batch Parsed elements. The list is not reused, so it's safe to hold on to it.
+         */
+        void onBatch(List<E> batch);
+    }
+
+    public StreamingJsonArrayResponseParser(Class<E> classOfE) {
+        this(classOfE, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Construct a parser for elements of a non-generic class.
+     *
+     * @param classOfE  Class of the array elements.
+     * @param batchSize Number of elements per batch.
+     */
+    public StreamingJsonArrayResponseParser(Class<E> classOfE, int batchSize) {
+        this((Type) classOfE, batchSize);
+    }
+
+    /**
+     * Construct a parser for elements of a generic type, e.g. {@code new TypeToken<Map<String, User>>() {}}.
+     *
+     * @param typeToken {@link com.google.gson.reflect.TypeToken} of the array elements.
+     * @param batchSize Number of elements per batch.
+     */
+    public StreamingJsonArrayResponseParser(TypeToken<E> typeToken, int batchSize) {
+        this(typeToken.getType(), batchSize);
+    }
+
+    private StreamingJsonArrayResponseParser(Type typeOfE, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1.");
+        }
+
+        mTypeOfE = typeOfE;
+        mBatchSize = batchSize;
+    }
+
+    /**
+     * Parses the response without a request to deliver batches to, so the elements are only counted.
+     */
+    @Override
+    public Response<Integer> parseNetworkResponse(NetworkResponse response) {
+        return parseNetworkResponse(null, response);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Response<Integer> parseNetworkResponse(GenericRequest<Integer> request, NetworkResponse response) {
+        BatchListener<E> batchListener = null;
+        // A response was delivered already if this is the refresh of a soft expired cache entry.
+        if (request != null && !request.hasHadResponseDelivered()) {
+            batchListener = (BatchListener<E>) request.getBatchListener();
+        }
+
+        try {
+            JsonReader jsonReader = new JsonReader(new InputStreamReader(
+                    new ByteArrayInputStream(response.data),
+                    HttpHeaderParser.parseCharset(response.headers)));
+
+            Gson gson = GsonRegistry.getGson();
+            int count = 0;
+            List<E> batch = new ArrayList<>(mBatchSize);
+
+            jsonReader.beginArray();
+            while (jsonReader.hasNext()) {
+                E element = gson.fromJson(jsonReader, mTypeOfE);
+                count++;
+
+                if (batchListener == null) {
+                    continue;
+                }
+
+                batch.add(element);
+                if (batch.size() == mBatchSize) {
+                    postBatch(request, batchListener, batch);
+                    batch = new ArrayList<>(mBatchSize);
+                }
+            }
+            jsonReader.endArray();
+
+            if (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("JSON document was not fully consumed.");
+            }
+
+            if (!batch.isEmpty()) {
+                postBatch(request, batchListener, batch);
+            }
+
+            return Response.success(count, HttpHeaderParser.parseCacheHeaders(response));
+        } catch (UnsupportedEncodingException e) {
+            return Response.error(new ParseError(e));
+        } catch (JsonSyntaxException e) {
+            return Response.error(new ParseError(e));
+        } catch (JsonIOException e) {
+            return Response.error(new ParseError(e));
+        } catch (IOException e) {
+            return Response.error(new ParseError(e));
+        } catch (IllegalStateException e) {
+            // Thrown by JsonReader when the body is not an array.
+            return Response.error(new ParseError(e));
+        }
+    }
+
+    private void postBatch(final GenericRequest<Integer> request, final BatchListener<E> batchListener,
+                           final List<E> batch) {
+        /**
+         * Responses are delivered through the main looper as well,
+         * so all batches are guaranteed to arrive before the response.
+         */
+        sMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                // Same as the response, batches are dropped once the request is canceled.
+                if (!request.isCanceled()) {
+                    batchListener.onBatch(batch);
+                }
+            }
+        });
+    }
+}
@@ -5,6 +5,7 @@ import android.util.Pair;
 import com.android.volley.Request;
 import com.android.volley.Response;
 import com.overturelabs.Cannon;
+import com.overturelabs.cannon.toolbox.RequestBuilder;
 import com.overturelabs.cannon.toolbox.ResourcePoint;
 
 import java.io.File;
@@ -42,6 +43,10 @@ public class ${NAME} extends ResourcePoint<${Model}> {
      * A simple copy and paste would suffice, but make sure you change
      * {@code ResourcePoint.class} to your new class.
      *
+     * Simple requests are built with a {@link RequestBuilder}, e.g.
+     * {@code get().addPathParam(key, value).setListener(listener).fire()},
+     * so one helper per HTTP method is all it takes.
+     *
      *========================================*/
 
     /*
@@ -50,45 +55,8 @@ public class ${NAME} extends ResourcePoint<${Model}> {
      * ========================================
      */
 
-    public static boolean get(Response.Listener<${Model}> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.GET, null, null, null, null, successListener, errorListener);
-    }
-
-    public static boolean get(final Map<String, String> resourcePathParams,
-                              Response.Listener<${Model}> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.GET, resourcePathParams, null, null, null, successListener, errorListener);
-    }
-
-    public static boolean get(String oAuth2Token,
-                              Response.Listener<${Model}> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.GET, null, null, null, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean get(final Map<String, String> resourcePathParams,
-                              String oAuth2Token,
-                              Response.Listener<${Model}> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.GET, resourcePathParams,  null, null, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean get(final Map<String, String> resourcePathParams,
-                              final Map<String, String> requestParams,
-                              String oAuth2Token,
-                              Response.Listener<${Model}> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.GET, resourcePathParams,  null, requestParams, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean get(final Map<String, String> resourcePathParams,
-                              final Map<String, String> requestHeaders,
-                              final Map<String, String> requestParams,
-                              String oAuth2Token,
-                              Response.Listener<${Model}> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.GET, resourcePathParams,  requestHeaders, requestParams, oAuth2Token, successListener, errorListener);
+    public static RequestBuilder<${Model}> get() {
+        return Cannon.request(${NAME}.class).setMethod(Request.Method.GET);
     }
 
     /*
@@ -97,37 +65,8 @@ public class ${NAME} extends ResourcePoint<${Model}> {
      * ========================================
      */
 
-    public static boolean post(Response.Listener<${Model}> successListener,
-                               Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.POST, null, null, null, null, successListener, errorListener);
-    }
-
-    public static boolean post(final Map<String, String> resourcePathParams,
-                               Response.Listener<${Model}> successListener,
-                               Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.POST, resourcePathParams, null, null, null, successListener, errorListener);
-    }
-
-    public static boolean post(String oAuth2Token,
-                               Response.Listener<${Model}> successListener,
-                               Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.POST, null, null, null, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean post(final Map<String, String> resourcePathParams,
-                               String oAuth2Token,
-                               Response.Listener<${Model}> successListener,
-                               Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.POST, resourcePathParams, null, null, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean post(final Map<String, String> resourcePathParams,
-                               final Map<String, String> requestHeaders,
-                               final Map<String, String> requestParams,
-                               String oAuth2Token,
-                               Response.Listener<${Model}> successListener,
-                               Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.POST, resourcePathParams, requestHeaders, requestParams, oAuth2Token, successListener, errorListener);
+    public static RequestBuilder<${Model}> post() {
+        return Cannon.request(${NAME}.class).setMethod(Request.Method.POST);
     }
 
     /*
@@ -180,37 +119,8 @@ public class ${NAME} extends ResourcePoint<${Model}> {
      * ========================================
      */
 
-    public static boolean put(Response.Listener<${Model}> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.PUT, null, null, null, null, successListener, errorListener);
-    }
-
-    public static boolean put(final Map<String, String> resourcePathParams,
-                              Response.Listener<${Model}> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.PUT, resourcePathParams, null, null, null, successListener, errorListener);
-    }
-
-    public static boolean put(String oAuth2Token,
-                              Response.Listener<${Model}> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.PUT, null, null, null, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean put(final Map<String, String> resourcePathParams,
-                              String oAuth2Token,
-                              Response.Listener<${Model}> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.PUT, resourcePathParams, null, null, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean put(final Map<String, String> resourcePathParams,
-                              final Map<String, String> requestHeaders,
-                              final Map<String, String> requestParams,
-                              String oAuth2Token,
-                              Response.Listener<${Model}> successListener,
-                              Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.PUT, resourcePathParams, requestHeaders, requestParams, oAuth2Token, successListener, errorListener);
+    public static RequestBuilder<${Model}> put() {
+        return Cannon.request(${NAME}.class).setMethod(Request.Method.PUT);
     }
 
     /*
@@ -263,37 +173,8 @@ public class ${NAME} extends ResourcePoint<${Model}> {
      * ========================================
      */
 
-    public static boolean patch(Response.Listener<${Model}> successListener,
-                                Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.PATCH, null, null, null, null, successListener, errorListener);
-    }
-
-    public static boolean patch(final Map<String, String> resourcePathParams,
-                                Response.Listener<${Model}> successListener,
-                                Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.PATCH, resourcePathParams, null, null, null, successListener, errorListener);
-    }
-
-    public static boolean patch(String oAuth2Token,
-                                Response.Listener<${Model}> successListener,
-                                Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.PATCH, null, null, null, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean patch(final Map<String, String> resourcePathParams,
-                                String oAuth2Token,
-                                Response.Listener<${Model}> successListener,
-                                Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.PATCH, resourcePathParams, null, null, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean patch(final Map<String, String> resourcePathParams,
-                                final Map<String, String> requestHeaders,
-                                final Map<String, String> requestParams,
-                                String oAuth2Token,
-                                Response.Listener<${Model}> successListener,
-                                Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.PATCH, resourcePathParams, requestHeaders, requestParams, oAuth2Token, successListener, errorListener);
+    public static RequestBuilder<${Model}> patch() {
+        return Cannon.request(${NAME}.class).setMethod(Request.Method.PATCH);
     }
 
     /*
@@ -346,36 +227,7 @@ public class ${NAME} extends ResourcePoint<${Model}> {
      * ========================================
      */
 
-    public static boolean delete(Response.Listener<${Model}> successListener,
-                                 Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.DELETE, null, null, null, null, successListener, errorListener);
-    }
-
-    public static boolean delete(final Map<String, String> resourcePathParams,
-                                 Response.Listener<${Model}> successListener,
-                                 Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.DELETE, resourcePathParams, null, null, null, successListener, errorListener);
-    }
-
-    public static boolean delete(String oAuth2Token,
-                                 Response.Listener<${Model}> successListener,
-                                 Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.DELETE, null, null, null, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean delete(final Map<String, String> resourcePathParams,
-                                 String oAuth2Token,
-                                 Response.Listener<${Model}> successListener,
-                                 Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.DELETE, resourcePathParams, null, null, oAuth2Token, successListener, errorListener);
-    }
-
-    public static boolean delete(final Map<String, String> resourcePathParams,
-                                 final Map<String, String> requestHeaders,
-                                 final Map<String, String> requestParams,
-                                 String oAuth2Token,
-                                 Response.Listener<${Model}> successListener,
-                                 Response.ErrorListener errorListener) throws Cannon.NotLoadedException, UnsupportedEncodingException {
-        return Cannon.fireAt(${NAME}.class, Request.Method.DELETE, resourcePathParams, requestHeaders, requestParams, oAuth2Token, successListener, errorListener);
+    public static RequestBuilder<${Model}> delete() {
+        return Cannon.request(${NAME}.class).setMethod(Request.Method.DELETE);
     }
 }